@@ -0,0 +1,104 @@
+package com.eldest.bloomfilter.benchmark;
+
+import com.eldest.bllomfilter.BloomFilter;
+import com.eldest.bllomfilter.bits.LongBitArray;
+import com.eldest.bllomfilter.hash.Hashes;
+import com.google.common.collect.ImmutableSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single thread add and check throughput for every strategy and filter sizes from L1-resident to bigger than L3
+ * and above 2^32 bits, where indexes need 64-bit hashes. The filter is filled to 1% false positive rate:
+ * its words are set at random to the 50% fill of such a filter, so billions of bits are ready in seconds,
+ * and then the positive keys are added. Run with {@code -prof gc} to see allocation rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class BloomFilterBenchmark {
+
+    private static final int NUMBER_OF_KEYS = 1 << 14;
+    private static final int BATCH_SIZE = 1 << 10;
+
+    @Param({"FUNCTIONS", "DOUBLE_HASHING", "BLOCKED"})
+    public String strategy;
+
+    /** 32 KB, 1 MB, 32 MB, 1 GB */
+    @Param({"262144", "8388608", "268435456", "8589934592"})
+    public long bits;
+
+    private BloomFilter bloomFilter;
+    private String[] positiveKeys;
+    private String[] negativeKeys;
+    private String[][] negativeBatches;
+    private boolean[] results;
+    private long nextToAdd;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        BloomFilter.Builder builder = new BloomFilter.Builder().setFilterSize(bits);
+        switch (strategy) {
+            case "FUNCTIONS":
+                // 64-bit functions, so every size takes the same functions
+                builder.setHashFunctions(ImmutableSet.of(Hashes.XXH64, Hashes.WYHASH,
+                        Hashes.Google.MURMUR3_128, Hashes.Google.SIPHASH24, Hashes.Google.MD5));
+                break;
+            case "DOUBLE_HASHING":
+                builder.setDoubleHashing(Hashes.Google.MURMUR3_128);
+                break;
+            case "BLOCKED":
+                builder.setBlocked(true);
+                break;
+            default:
+                throw new IllegalArgumentException(strategy);
+        }
+        bloomFilter = builder.build();
+
+        long numberOfValues = (long) (bits / 9.6);
+        Random random = new Random(1);
+        LongBitArray bitArray = (LongBitArray) bloomFilter.getBitArray();
+        for (int i = 0; i < bitArray.numberOfWords(); i++) {
+            bitArray.setWord(i, random.nextLong());
+        }
+
+        positiveKeys = Keys.strings(random, NUMBER_OF_KEYS, 0, numberOfValues);
+        bloomFilter.addAll(positiveKeys);
+        negativeKeys = Keys.strings(random, NUMBER_OF_KEYS, numberOfValues, Long.MAX_VALUE);
+        negativeBatches = new String[NUMBER_OF_KEYS / BATCH_SIZE][];
+        for (int i = 0; i < negativeBatches.length; i++) {
+            negativeBatches[i] = Arrays.copyOfRange(negativeKeys, i * BATCH_SIZE, (i + 1) * BATCH_SIZE);
+        }
+        results = new boolean[BATCH_SIZE];
+        nextToAdd = numberOfValues;
+    }
+
+    @Benchmark
+    public boolean checkPositive() {
+        return bloomFilter.check(positiveKeys[next++ & (NUMBER_OF_KEYS - 1)]);
+    }
+
+    @Benchmark
+    public boolean checkNegative() {
+        return bloomFilter.check(negativeKeys[next++ & (NUMBER_OF_KEYS - 1)]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public boolean[] checkAllNegative() {
+        bloomFilter.checkAll(negativeBatches[next++ % negativeBatches.length], results);
+        return results;
+    }
+
+    @Benchmark
+    public boolean addData() {
+        return bloomFilter.addData(negativeKeys[(int) (nextToAdd++ & (NUMBER_OF_KEYS - 1))]);
+    }
+}
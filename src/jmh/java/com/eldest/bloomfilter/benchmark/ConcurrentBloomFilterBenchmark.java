@@ -0,0 +1,83 @@
+package com.eldest.bloomfilter.benchmark;
+
+import com.eldest.bllomfilter.BloomFilter;
+import com.eldest.bllomfilter.ConcurrentBloomFilter;
+import com.eldest.bllomfilter.hash.Hashes;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-threaded throughput of ConcurrentBloomFilter, number of threads is set by {@code -t}.
+ * The {@code mixed} group runs 3 readers with 1 writer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ConcurrentBloomFilterBenchmark {
+
+    private static final int NUMBER_OF_KEYS = 1 << 14;
+
+    /** 1 MB, 32 MB */
+    @Param({"8388608", "268435456"})
+    public long bits;
+
+    private ConcurrentBloomFilter bloomFilter;
+    private String[] positiveKeys;
+    private String[] negativeKeys;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next = (int) Thread.currentThread().getId() * 7919;
+    }
+
+    @Setup
+    public void setUp() {
+        bloomFilter = new BloomFilter.Builder()
+                .setDoubleHashing(Hashes.Google.MURMUR3_128)
+                .setFilterSize(bits)
+                .buildConcurrent();
+
+        long numberOfValues = (long) (bits / 9.6);
+        for (long i = 0; i < numberOfValues; i++) {
+            bloomFilter.addData(Keys.key(i));
+        }
+
+        Random random = new Random(1);
+        positiveKeys = Keys.strings(random, NUMBER_OF_KEYS, 0, numberOfValues);
+        negativeKeys = Keys.strings(random, NUMBER_OF_KEYS, numberOfValues, Long.MAX_VALUE);
+    }
+
+    @Benchmark
+    public boolean checkPositive(Cursor cursor) {
+        return bloomFilter.check(positiveKeys[cursor.next++ & (NUMBER_OF_KEYS - 1)]);
+    }
+
+    @Benchmark
+    public boolean checkNegative(Cursor cursor) {
+        return bloomFilter.check(negativeKeys[cursor.next++ & (NUMBER_OF_KEYS - 1)]);
+    }
+
+    @Benchmark
+    public boolean addData(Cursor cursor) {
+        return bloomFilter.addData(negativeKeys[cursor.next++ & (NUMBER_OF_KEYS - 1)]);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public boolean mixedCheck(Cursor cursor) {
+        return bloomFilter.check(positiveKeys[cursor.next++ & (NUMBER_OF_KEYS - 1)]);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public boolean mixedAdd(Cursor cursor) {
+        return bloomFilter.addData(negativeKeys[cursor.next++ & (NUMBER_OF_KEYS - 1)]);
+    }
+}
@@ -0,0 +1,119 @@
+package com.eldest.bloomfilter.benchmark;
+
+import com.eldest.bllomfilter.hash.HashFunction;
+import com.eldest.bllomfilter.hash.Hashes;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of every bundled hash function, run with {@code -prof gc} to see allocation rate.
+ * String keys are hashed for every function, byte arrays for every function and length.
+ * {@link #murmurByteLoop(Bytes)} and {@link #fnvShiftAddLoop(Bytes)} are the byte at a time loops MURMUR
+ * and FNV1a64 had before word reads, compare them to {@link #hashBytes(Functions, Bytes)}
+ * with {@code -p function=MURMUR,FNV1a64}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashFunctionBenchmark {
+
+    private static final int NUMBER_OF_KEYS = 1 << 12;
+
+    @State(Scope.Thread)
+    public static class Functions {
+
+        @Param({"MURMUR", "FNV1a32", "FNV1a64", "FNV132", "FNV164", "XXH64", "WYHASH", "MD5", "SHA-1", "SHA-256",
+                "Google.MURMUR3_32", "Google.MURMUR3_128", "Google.SIPHASH24", "Google.ADLER32", "Google.CRC32",
+                "Google.MD5", "Google.SHA256", "Google.SHA512"})
+        public String function;
+
+        private HashFunction hashFunction;
+        private String[] keys;
+        private int next;
+
+        @Setup
+        public void setUp() {
+            hashFunction = Hashes.forName(function);
+            keys = Keys.strings(new Random(1), NUMBER_OF_KEYS);
+        }
+
+        private String nextKey() {
+            return keys[next++ & (NUMBER_OF_KEYS - 1)];
+        }
+    }
+
+    /** Byte arrays have their own lengths, so string benchmarks don't repeat for every length */
+    @State(Scope.Thread)
+    public static class Bytes {
+
+        @Param({"16", "1024", "65536"})
+        public int length;
+
+        private byte[] bytes;
+
+        @Setup
+        public void setUp() {
+            bytes = new byte[length];
+            new Random(1).nextBytes(bytes);
+        }
+    }
+
+    @Benchmark
+    public int hash(Functions functions) {
+        return functions.hashFunction.hash(functions.nextKey());
+    }
+
+    @Benchmark
+    public long hash64(Functions functions) {
+        return functions.hashFunction.hash64(functions.nextKey());
+    }
+
+    @Benchmark
+    public long hashBytes(Functions functions, Bytes data) {
+        return functions.hashFunction.hash64(data.bytes, 0, data.bytes.length);
+    }
+
+    @Benchmark
+    public int murmurByteLoop(Bytes data) {
+        byte[] bytes = data.bytes;
+        int m = 0x5bd1e995;
+        int h = 1 ^ bytes.length;
+        int len_4 = bytes.length >> 2;
+        for (int i = 0; i < len_4; i++) {
+            int i_4 = i << 2;
+            int k = bytes[i_4 + 3];
+            k = (k << 8) | (bytes[i_4 + 2] & 0xff);
+            k = (k << 8) | (bytes[i_4 + 1] & 0xff);
+            k = (k << 8) | (bytes[i_4] & 0xff);
+            k *= m;
+            k ^= k >>> 24;
+            k *= m;
+            h *= m;
+            h ^= k;
+        }
+        for (int i = len_4 << 2; i < bytes.length; i++) {
+            h ^= (int) bytes[i] << ((bytes.length - 1 - i) << 3);
+        }
+        if ((bytes.length & 3) != 0) {
+            h *= m;
+        }
+        h ^= h >>> 13;
+        h *= m;
+        h ^= h >>> 15;
+        return h;
+    }
+
+    @Benchmark
+    public long fnvShiftAddLoop(Bytes data) {
+        long seed = 0xcbf29ce484222325L;
+        for (byte b : data.bytes) {
+            seed ^= b;
+            seed += (seed << 1) + (seed << 4) + (seed << 5) + (seed << 7) + (seed << 8) + (seed << 40);
+        }
+        return seed;
+    }
+}
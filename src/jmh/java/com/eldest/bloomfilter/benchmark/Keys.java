@@ -0,0 +1,31 @@
+package com.eldest.bloomfilter.benchmark;
+
+import java.util.Random;
+
+/** Generates keys of benchmarks, key of value {@code i} is {@code "key" + i}. */
+final class Keys {
+
+    private Keys() { /* closed */ }
+
+    static String key(long value) {
+        return "key" + value;
+    }
+
+    /**
+     * Returns keys of random values
+     */
+    static String[] strings(Random random, int numberOfKeys) {
+        return strings(random, numberOfKeys, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns keys of random values from {@code [from, to)}
+     */
+    static String[] strings(Random random, int numberOfKeys, long from, long to) {
+        String[] keys = new String[numberOfKeys];
+        for (int i = 0; i < numberOfKeys; i++) {
+            keys[i] = key(from + (long) (random.nextDouble() * (to - from)));
+        }
+        return keys;
+    }
+}
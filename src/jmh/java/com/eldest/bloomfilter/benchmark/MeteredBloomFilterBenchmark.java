@@ -0,0 +1,58 @@
+package com.eldest.bloomfilter.benchmark;
+
+import com.eldest.bllomfilter.BloomFilter;
+import com.eldest.bllomfilter.MeteredBloomFilter;
+import com.eldest.bllomfilter.hash.Hashes;
+import com.eldest.bllomfilter.metrics.BloomFilterStats;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of metering, plain and metered checks of the same 1 MB filter.
+ * Run with {@code -t 4} to see the cost of the counters shared by threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MeteredBloomFilterBenchmark {
+
+    private static final int NUMBER_OF_KEYS = 1 << 14;
+    private static final int BITS = 8_388_608;
+
+    private BloomFilter bloomFilter;
+    private MeteredBloomFilter meteredBloomFilter;
+    private String[] keys;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+    }
+
+    @Setup
+    public void setUp() {
+        bloomFilter = new BloomFilter.Builder()
+                .setDoubleHashing(Hashes.Google.MURMUR3_128)
+                .setFilterSize(BITS)
+                .build();
+        for (long i = 0; i < BITS / 10; i++) {
+            bloomFilter.addData(Keys.key(i));
+        }
+        meteredBloomFilter = new MeteredBloomFilter(bloomFilter, new BloomFilterStats());
+        keys = Keys.strings(new Random(1), NUMBER_OF_KEYS, 0, BITS / 5);
+    }
+
+    @Benchmark
+    public boolean check(Cursor cursor) {
+        return bloomFilter.check(keys[cursor.next++ & (NUMBER_OF_KEYS - 1)]);
+    }
+
+    @Benchmark
+    public boolean checkMetered(Cursor cursor) {
+        return meteredBloomFilter.check(keys[cursor.next++ & (NUMBER_OF_KEYS - 1)]);
+    }
+}
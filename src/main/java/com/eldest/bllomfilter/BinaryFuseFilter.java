@@ -0,0 +1,302 @@
+package com.eldest.bllomfilter;
+
+import com.eldest.bllomfilter.hash.HashFunction;
+import com.eldest.bllomfilter.hash.implementation.MurmurHash;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.eldest.bllomfilter.hash.Hashes.Google.MURMUR3_128;
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Immutable binary fuse filter built once from all values. <br>
+ * Takes about {@code 1.13 * log2(1 / falsePositiveRate)} bits per value (BloomFilter takes 1.44 times)
+ * and a lookup reads exactly 3 fingerprints. Fingerprints are 8 or 16 bits,
+ * so false positive rate is 1/256 or 1/65536.
+ *
+ * @see <a href="https://arxiv.org/abs/2201.01174">Binary Fuse Filters: Fast and Smaller Than Xor Filters</a>
+ */
+public class BinaryFuseFilter {
+
+    private static final int ARITY = 3;
+    private static final int MAX_ITERATIONS = 100;
+    private static final int MAX_SEGMENT_LENGTH = 1 << 18;
+
+    private final HashFunction hashFunction;
+    private final long seed;
+    private final int segmentLength;
+    private final int segmentLengthMask;
+    private final int segmentCountLength;
+    private final int fingerprintBits;
+    private final byte[] fingerprints;
+
+    /**
+     * Uses ready fingerprints, e.g. to restore a filter. Use {@link Builder} to create a new one.
+     */
+    public BinaryFuseFilter(HashFunction hashFunction, long seed, int segmentLength, int segmentCountLength,
+                            int fingerprintBits, byte[] fingerprints) {
+        checkArgument(fingerprintBits == 8 || fingerprintBits == 16, "fingerprintBits must be 8 or 16: %s", fingerprintBits);
+        checkArgument(Integer.bitCount(segmentLength) == 1, "segmentLength must be a power of two: %s", segmentLength);
+        checkArgument(fingerprints.length == (long) (segmentCountLength + (ARITY - 1) * segmentLength) * (fingerprintBits / 8),
+                "fingerprints don't match segments");
+
+        this.hashFunction = hashFunction;
+        this.seed = seed;
+        this.segmentLength = segmentLength;
+        this.segmentLengthMask = segmentLength - 1;
+        this.segmentCountLength = segmentCountLength;
+        this.fingerprintBits = fingerprintBits;
+        this.fingerprints = fingerprints;
+    }
+
+    //--------------------------------- Builder ---------------------------------
+
+    /**
+     * <p>Uses to create new BinaryFuseFilter.</p>
+     * {@code filterData} is required. {@code falsePositiveRate} chooses 8-bit fingerprints if it is
+     * at least 1/256, 16-bit ones otherwise, 0.01 by default. <br>
+     * {@link com.eldest.bllomfilter.hash.Hashes.Google#MURMUR3_128} is used by default,
+     * the function should give 64 bits, see {@link HashFunction#hash64(String)}.
+     */
+    public static class Builder {
+
+        private HashFunction hashFunction = MURMUR3_128;
+        private double falsePositiveRate = 0.01;
+        private List<String> filterData = ImmutableList.of();
+
+        //--------------------------------- f ---------------------------------
+
+        public Builder setHashFunction(HashFunction hashFunction) {
+            this.hashFunction = hashFunction;
+            return this;
+        }
+
+        public Builder setFalsePositiveRate(double falsePositiveRate) {
+            this.falsePositiveRate = falsePositiveRate;
+            return this;
+        }
+
+        public Builder setFilterData(List<String> filterData) {
+            this.filterData = filterData;
+            return this;
+        }
+
+        public BinaryFuseFilter build() {
+            long[] keys = new long[filterData.size()];
+            int i = 0;
+            for (String value : filterData) {
+                keys[i++] = hashFunction.hash64(value);
+            }
+            return BinaryFuseFilter.build(hashFunction, keys, falsePositiveRate >= 1d / 256 ? 8 : 16);
+        }
+    }
+
+    //--------------------------------- f ---------------------------------
+
+    /**
+     * Checks if element is probably exist
+     */
+    public boolean check(String value) {
+        long hash = MurmurHash.fmix64(hashFunction.hash64(value) + seed);
+        int fingerprint = fingerprint(hash);
+        int h0 = index(hash, 0);
+        int h1 = index(hash, 1);
+        int h2 = index(hash, 2);
+        return fingerprint == (getFingerprint(h0) ^ getFingerprint(h1) ^ getFingerprint(h2));
+    }
+
+    public HashFunction getHashFunction() {
+        return hashFunction;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getSegmentLength() {
+        return segmentLength;
+    }
+
+    public int getSegmentCountLength() {
+        return segmentCountLength;
+    }
+
+    public int getFingerprintBits() {
+        return fingerprintBits;
+    }
+
+    /**
+     * Returns fingerprints, little-endian for 16 bits. The array is not copied and must not be changed.
+     */
+    public byte[] getFingerprints() {
+        return fingerprints;
+    }
+
+    /**
+     * Returns number of bits
+     */
+    public long size() {
+        return (long) fingerprints.length * Byte.SIZE;
+    }
+
+    //--------------------------------- construction ---------------------------------
+
+    private static BinaryFuseFilter build(HashFunction hashFunction, long[] keys, int fingerprintBits) {
+        keys = distinct(keys);
+        int size = keys.length;
+
+        int segmentLength = size == 0 ? 4 : Math.min(MAX_SEGMENT_LENGTH,
+                1 << (int) Math.floor(Math.log(size) / Math.log(3.33) + 2.25));
+        double sizeFactor = size <= 1 ? 0 : Math.max(1.125, 0.875 + 0.25 * Math.log(1_000_000) / Math.log(size));
+        int capacity = (int) Math.round(size * sizeFactor);
+        int segmentCount = (capacity + segmentLength - 1) / segmentLength - (ARITY - 1);
+        int arrayLength = (segmentCount + ARITY - 1) * segmentLength;
+        segmentCount = (arrayLength + segmentLength - 1) / segmentLength;
+        segmentCount = segmentCount <= ARITY - 1 ? 1 : segmentCount - (ARITY - 1);
+        arrayLength = (segmentCount + ARITY - 1) * segmentLength;
+        int segmentCountLength = segmentCount * segmentLength;
+
+        byte[] fingerprints = new byte[arrayLength * (fingerprintBits / 8)];
+        long seed = 0x726b2b9d438b9d4dL;
+
+        int[] count = new int[arrayLength];
+        long[] xorHash = new long[arrayLength];
+        int[] alone = new int[arrayLength];
+        long[] stackHash = new long[size];
+        byte[] stackFound = new byte[size];
+
+        for (int iteration = 0; ; iteration++) {
+            if (iteration >= MAX_ITERATIONS) {
+                throw new IllegalStateException("Can't build BinaryFuseFilter, are there duplicated hashes?");
+            }
+            seed = MurmurHash.fmix64(seed + iteration);
+            BinaryFuseFilter filter = new BinaryFuseFilter(
+                    hashFunction, seed, segmentLength, segmentCountLength, fingerprintBits, fingerprints);
+
+            // every slot keeps number of keys (count >> 2), xor of their hashes and xor of their positions (count & 3)
+            Arrays.fill(count, 0);
+            Arrays.fill(xorHash, 0);
+            for (long key : keys) {
+                long hash = MurmurHash.fmix64(key + seed);
+                for (int position = 0; position < ARITY; position++) {
+                    int index = filter.index(hash, position);
+                    count[index] = (count[index] + 4) ^ position;
+                    xorHash[index] ^= hash;
+                }
+            }
+
+            // peeling: a slot with one key is assigned to that key, the key is removed from its other slots
+            int aloneSize = 0;
+            for (int i = 0; i < arrayLength; i++) {
+                if (count[i] >> 2 == 1) {
+                    alone[aloneSize++] = i;
+                }
+            }
+            int stackSize = 0;
+            while (aloneSize > 0) {
+                int index = alone[--aloneSize];
+                if (count[index] >> 2 != 1) {
+                    continue;
+                }
+                long hash = xorHash[index];
+                int found = count[index] & 3;
+                stackHash[stackSize] = hash;
+                stackFound[stackSize] = (byte) found;
+                stackSize++;
+
+                for (int position = 0; position < ARITY; position++) {
+                    if (position == found) {
+                        continue;
+                    }
+                    int other = filter.index(hash, position);
+                    count[other] = (count[other] - 4) ^ position;
+                    xorHash[other] ^= hash;
+                    if (count[other] >> 2 == 1) {
+                        alone[aloneSize++] = other;
+                    }
+                }
+            }
+
+            if (stackSize == size) {
+                for (int i = size - 1; i >= 0; i--) {
+                    long hash = stackHash[i];
+                    int found = stackFound[i];
+                    int fingerprint = filter.fingerprint(hash);
+                    for (int position = 0; position < ARITY; position++) {
+                        if (position != found) {
+                            fingerprint ^= filter.getFingerprint(filter.index(hash, position));
+                        }
+                    }
+                    filter.setFingerprint(filter.index(hash, found), fingerprint);
+                }
+                return filter;
+            }
+        }
+    }
+
+    private static long[] distinct(long[] keys) {
+        long[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, size);
+    }
+
+    //--------------------------------- support ---------------------------------
+
+    /**
+     * Position 0 is in the segment chosen by multiply-high, positions 1 and 2 are in the next segments,
+     * offsets inside segments are taken from different bits of the low 36 ones
+     */
+    private int index(long hash, int position) {
+        long index = multiplyHigh(hash, segmentCountLength) + (long) position * segmentLength;
+        long low = hash & ((1L << 36) - 1);
+        index ^= (low >>> (36 - 18 * position)) & segmentLengthMask;
+        return (int) index;
+    }
+
+    /**
+     * High 64 bits of unsigned {@code hash * value}, value is less than 2^32
+     */
+    private static long multiplyHigh(long hash, int value) {
+        long high = (hash >>> 32) * value;
+        long low = (hash & 0xffffffffL) * value;
+        return (high + (low >>> 32)) >>> 32;
+    }
+
+    private int fingerprint(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & ((1 << fingerprintBits) - 1);
+    }
+
+    private int getFingerprint(int index) {
+        if (fingerprintBits == 8) {
+            return fingerprints[index] & 0xff;
+        }
+        return (fingerprints[index << 1] & 0xff) | (fingerprints[(index << 1) + 1] & 0xff) << 8;
+    }
+
+    private void setFingerprint(int index, int fingerprint) {
+        if (fingerprintBits == 8) {
+            fingerprints[index] = (byte) fingerprint;
+        } else {
+            fingerprints[index << 1] = (byte) fingerprint;
+            fingerprints[(index << 1) + 1] = (byte) (fingerprint >>> 8);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("hashFunction", hashFunction)
+                .add("fingerprintBits", fingerprintBits)
+                .add("size", size())
+                .toString();
+    }
+}
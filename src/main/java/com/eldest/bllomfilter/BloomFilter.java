@@ -1,14 +1,32 @@
 package com.eldest.bllomfilter;
 
+import com.eldest.bllomfilter.bits.AtomicBitArray;
+import com.eldest.bllomfilter.bits.BitArray;
+import com.eldest.bllomfilter.bits.CounterArray;
+import com.eldest.bllomfilter.bits.LongBitArray;
 import com.eldest.bllomfilter.hash.HashFunction;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.eldest.bllomfilter.hash.Hashes.Google.*;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 
 /**
  * Simple implementation of BloomFilter.
@@ -18,14 +36,20 @@ import static com.eldest.bllomfilter.hash.Hashes.Google.*;
  * @see <a href="http://stackoverflow.com/questions/658439/how-many-hash-functions-does-my-bloom-filter-need">
  * how-many-hash-functions-does-my-bloom-filter-need</a>
  */
-public class BloomFilter {
+public class BloomFilter implements ReadableBloomFilter {
 
-    private final Set<HashFunction> hashFunctions;
-    private final boolean[] bitArray;
+    /** Number of values which indexes are calculated before the bits are touched */
+    private static final int BATCH_SIZE = 256;
 
-    private BloomFilter(boolean[] bitArray, Set<HashFunction> hashFunctions) {
+    /** Number of bytes of a file mapped at once by {@link #addLines(Path)} */
+    private static final int MAPPED_CHUNK_SIZE = 1 << 30;
+
+    private final HashStrategy hashStrategy;
+    private final BitArray bitArray;
+
+    BloomFilter(BitArray bitArray, HashStrategy hashStrategy) {
         this.bitArray = bitArray;
-        this.hashFunctions = hashFunctions;
+        this.hashStrategy = hashStrategy;
     }
 
     //--------------------------------- Builder ---------------------------------
@@ -34,16 +58,30 @@ public class BloomFilter {
      * <p>Uses to create new BloomFilter.</p>
      * Has number of hash functions by default but you can set your own. <br>
      * If filterData is set will try to calculate optimal bitMap size and number of hash functions. <br>
-     * {@code falsePositiveRate} can be set to change your acceptable false positive rate, 0.01 by default means 1%
+     * {@code falsePositiveRate} can be set to change your acceptable false positive rate, 0.01 by default means 1% <br>
+     * {@code doubleHashing} replaces the set of hash functions with one 64-bit function,
+     * so any number of hashes costs one hash computation. Filters bigger than 2^31 bits need it or
+     * a set of 64-bit functions, the default set has 32-bit ones. <br>
+     * {@code blocked} puts all bits of a value into one cache line, the filter becomes a bit bigger
+     * to keep the same false positive rate. <br>
+     * {@code parallel} adds filterData by all threads of the common ForkJoinPool.
      */
     public static class Builder {
 
         private Set<HashFunction> hashFunctions = ImmutableSet.of(
                 ADLER32, CRC32, MD5, MURMUR3_32, MURMUR3_128, SHA256, SHA512, SIPHASH24, SIP_HASH_24);
 
-        private boolean[] bitArray;
+        private HashFunction doubleHashFunction;
+        private int numberOfHashes = 7;
+        private boolean blocked;
+        private boolean parallel;
+
+        private long filterSize;
+        private BitArray bitArray;
+        private HashStrategy hashStrategy;
         private double falsePositiveRate = 0.01;
         private List<String> filterData = ImmutableList.of();
+        private long expectedNumberOfItems;
 
         //--------------------------------- f ---------------------------------
 
@@ -57,8 +95,61 @@ public class BloomFilter {
             return this;
         }
 
-        public Builder setFilterSize(int filterSize) {
-            this.bitArray = new boolean[filterSize];
+        /**
+         * Enables double hashing with the given function, {@link HashFunction#hash64(String)} is used.
+         */
+        public Builder setDoubleHashing(HashFunction hashFunction) {
+            this.doubleHashFunction = hashFunction;
+            return this;
+        }
+
+        /**
+         * Enables blocked filter, it uses function set by {@link #setDoubleHashing(HashFunction)}
+         * or {@link com.eldest.bllomfilter.hash.Hashes.Google#MURMUR3_128} by default.
+         * Filter size is rounded up to {@link HashStrategies#BLOCK_SIZE}.
+         */
+        public Builder setBlocked(boolean blocked) {
+            this.blocked = blocked;
+            return this;
+        }
+
+        /**
+         * Adds filterData in parallel, bits are set atomically and copied to the filter at the end.
+         */
+        public Builder setParallel(boolean parallel) {
+            this.parallel = parallel;
+            return this;
+        }
+
+        /**
+         * Number of hashes for double hashing and blocked filter if filterData is not set.
+         */
+        public Builder setNumberOfHashes(int numberOfHashes) {
+            this.numberOfHashes = numberOfHashes;
+            return this;
+        }
+
+        /**
+         * Number of bits, may be bigger than 2^31, see {@link LongBitArray}
+         */
+        public Builder setFilterSize(long filterSize) {
+            this.filterSize = filterSize;
+            return this;
+        }
+
+        /**
+         * Uses ready bits, size and hashes are not calculated. Used to restore a filter.
+         */
+        public Builder setBitArray(BitArray bitArray) {
+            this.bitArray = bitArray;
+            return this;
+        }
+
+        /**
+         * Uses ready strategy instead of hash functions, double hashing and blocked settings.
+         */
+        public Builder setHashStrategy(HashStrategy hashStrategy) {
+            this.hashStrategy = hashStrategy;
             return this;
         }
 
@@ -67,33 +158,212 @@ public class BloomFilter {
             return this;
         }
 
+        /**
+         * Number of items used to calculate optimal size and hashes when values are streamed
+         * by {@code buildFrom} methods instead of filterData.
+         */
+        public Builder setExpectedNumberOfItems(long expectedNumberOfItems) {
+            this.expectedNumberOfItems = expectedNumberOfItems;
+            return this;
+        }
+
         public BloomFilter build() {
+            if (!filterData.isEmpty() && bitArray == null) {
+                calculateOptimal(filterData.size());
+            }
+
+            HashStrategy hashStrategy = createHashStrategy();
+            if (parallel && bitArray == null) {
+                AtomicBitArray atomicBitArray = new AtomicBitArray(bitArraySize());
+                filterData.parallelStream().forEach(value -> hashStrategy.put(value, atomicBitArray));
+                return new BloomFilter(LongBitArray.copyOf(atomicBitArray), hashStrategy);
+            }
+
+            BloomFilter bloomFilter = new BloomFilter(
+                    bitArray != null ? bitArray : new LongBitArray(bitArraySize()), hashStrategy);
+            bloomFilter.addData(filterData);
+
+            return bloomFilter;
+        }
+
+        /**
+         * Builds filter from values which are added one by one as they come, so they are never in memory at once.
+         * Size is calculated from {@link #setExpectedNumberOfItems(long)} or set by {@link #setFilterSize(long)}.
+         * Parallel stream is added by all its threads like {@link #setParallel(boolean)} filterData.
+         */
+        public BloomFilter buildFrom(Stream<String> values) {
+            return buildFrom(values, expectedNumberOfItems);
+        }
+
+        /**
+         * Builds filter from lines of the file. If the number of items is not set, the lines are counted by a fast
+         * first pass over the bytes, so the charset must encode '\n' as one byte, e.g. UTF-8 or cp1251.
+         * An empty file gives an empty filter sized for one item.
+         */
+        public BloomFilter buildFrom(Path path, Charset charset) throws IOException {
+            long numberOfItems = expectedNumberOfItems;
+            if (numberOfItems == 0 && filterSize == 0 && bitArray == null) {
+                // an empty file still gets a filter, the minimal one of one item
+                numberOfItems = Math.max(1, countLines(path));
+            }
+            try (Stream<String> lines = Files.lines(path, charset)) {
+                return buildFrom(lines, numberOfItems);
+            }
+        }
+
+        /**
+         * Builds filter from lines of the file by {@link BloomFilter#addLines(Path)}, bytes of the lines are hashed
+         * in place, so the file charset must be the one of the hash functions. Lines are counted like by
+         * {@link #buildFrom(Path, Charset)} if the number of items is not set.
+         */
+        public BloomFilter buildFromMapped(Path path) throws IOException {
+            long numberOfItems = expectedNumberOfItems;
+            if (numberOfItems == 0 && filterSize == 0 && bitArray == null) {
+                // an empty file still gets a filter, the minimal one of one item
+                numberOfItems = Math.max(1, countLines(path));
+            }
+            BloomFilter bloomFilter = buildFrom(Stream.empty(), numberOfItems);
+            bloomFilter.addLines(path);
+            return bloomFilter;
+        }
+
+        /**
+         * Builds filter from lines read from the channel, the channel is not closed.
+         * The channel is read once, so the number of items or the filter size must be set.
+         */
+        public BloomFilter buildFrom(ReadableByteChannel channel, Charset charset) {
+            BufferedReader reader = new BufferedReader(Channels.newReader(channel, charset.newDecoder(), -1));
+            return buildFrom(reader.lines(), expectedNumberOfItems);
+        }
+
+        private BloomFilter buildFrom(Stream<String> values, long numberOfItems) {
+            if (numberOfItems > 0 && bitArray == null) {
+                calculateOptimal(numberOfItems);
+            }
+            checkState(filterSize > 0 || bitArray != null, "Expected number of items or filter size must be set");
+
+            HashStrategy hashStrategy = createHashStrategy();
+            if (values.isParallel() && bitArray == null) {
+                AtomicBitArray atomicBitArray = new AtomicBitArray(bitArraySize());
+                values.forEach(value -> hashStrategy.put(value, atomicBitArray));
+                return new BloomFilter(LongBitArray.copyOf(atomicBitArray), hashStrategy);
+            }
+
+            BloomFilter bloomFilter = new BloomFilter(
+                    bitArray != null ? bitArray : new LongBitArray(bitArraySize()), hashStrategy);
+            values.sequential().forEach(bloomFilter::addData);
+
+            return bloomFilter;
+        }
+
+        /**
+         * Same as {@link #build()} but the filter is thread safe.
+         */
+        public ConcurrentBloomFilter buildConcurrent() {
+            checkState(bitArray == null, "Ready bitArray can't be used by ConcurrentBloomFilter");
             if (!filterData.isEmpty()) {
-                int dataSize = filterData.size();
+                calculateOptimal(filterData.size());
+            }
 
-                int numberOfBits = getOptimalNumberOfBits(dataSize, falsePositiveRate);
-                this.bitArray = new boolean[numberOfBits];
+            ConcurrentBloomFilter bloomFilter = new ConcurrentBloomFilter(
+                    new AtomicBitArray(bitArraySize()), createHashStrategy());
+            if (parallel) {
+                filterData.parallelStream().forEach(bloomFilter::addData);
+            } else {
+                bloomFilter.addData(filterData);
+            }
+
+            return bloomFilter;
+        }
 
-                int numberOfFunctions = getOptimalNumberOfFunctions(numberOfBits, dataSize);
-                hashFunctions = hashFunctions.stream()
-                        .limit(numberOfFunctions)
-                        .collect(Collectors.toSet());
+        /**
+         * Same as {@link #build()} but every bit is a 4-bit counter, so values can be removed.
+         */
+        public CountingBloomFilter buildCounting() {
+            checkState(bitArray == null, "Ready bitArray can't be used by CountingBloomFilter");
+            if (!filterData.isEmpty()) {
+                calculateOptimal(filterData.size());
             }
 
-            BloomFilter bloomFilter = new BloomFilter(bitArray, hashFunctions);
+            CountingBloomFilter bloomFilter = new CountingBloomFilter(
+                    new CounterArray(bitArraySize()), createHashStrategy());
             bloomFilter.addData(filterData);
 
             return bloomFilter;
         }
+
+        private void calculateOptimal(long dataSize) {
+            filterSize = blocked
+                    ? getOptimalNumberOfBitsBlocked(dataSize, falsePositiveRate)
+                    : getOptimalNumberOfBits(dataSize, falsePositiveRate);
+
+            int numberOfFunctions = getOptimalNumberOfFunctions(filterSize, dataSize);
+            numberOfHashes = numberOfFunctions;
+            hashFunctions = hashFunctions.stream()
+                    .limit(numberOfFunctions)
+                    .collect(Collectors.toSet());
+        }
+
+        private HashStrategy createHashStrategy() {
+            if (hashStrategy != null) {
+                return hashStrategy;
+            }
+            if (blocked) {
+                return HashStrategies.blocked(
+                        doubleHashFunction != null ? doubleHashFunction : MURMUR3_128, numberOfHashes);
+            }
+            if (doubleHashFunction != null) {
+                return HashStrategies.doubleHashing(doubleHashFunction, numberOfHashes);
+            }
+
+            long size = bitArray != null ? bitArray.bitSize() : bitArraySize();
+            if (size > Integer.MAX_VALUE) {
+                for (HashFunction hashFunction : hashFunctions) {
+                    checkState(hashFunction.bits() >= Long.SIZE,
+                            "%s has %s bits, filter of %s bits needs 64-bit functions or double hashing",
+                            hashFunction.getName(), hashFunction.bits(), size);
+                }
+            }
+            return HashStrategies.functions(hashFunctions);
+        }
+
+        private long bitArraySize() {
+            if (blocked) {
+                int blockMask = HashStrategies.BLOCK_SIZE - 1;
+                return (filterSize + blockMask) & ~blockMask;
+            }
+            return filterSize;
+        }
     }
 
     //--------------------------------- f ---------------------------------
 
-    public void addData(String value) {
-        for (HashFunction hashFunction : hashFunctions) {
-            int index = hashFunction.index(value, bitArray.length);
-            bitArray[index] = true;
-        }
+    /**
+     * Adds value, returns true if any bit was changed, so the value was definitely not there before
+     */
+    public boolean addData(String value) {
+        return hashStrategy.put(value, bitArray);
+    }
+
+    /**
+     * Adds value hashed as 8 little-endian bytes, no String is created, see {@link #addData(String)}
+     */
+    public boolean addData(long value) {
+        return hashStrategy.put(value, bitArray);
+    }
+
+    /**
+     * Adds value given as bytes, see {@link HashFunction#hash(byte[], int, int)}
+     */
+    public boolean addData(byte[] value) {
+        return hashStrategy.put(value, 0, value.length, bitArray);
+    }
+
+    /**
+     * Adds value given as bytes of the buffer, e.g. of a mapped file, see {@link HashFunction#hash(ByteBuffer, int, int)}
+     */
+    public boolean addData(ByteBuffer buf, int off, int len) {
+        return hashStrategy.put(buf, off, len, bitArray);
     }
 
     public void addData(List<String> valueList) {
@@ -102,38 +372,360 @@ public class BloomFilter {
         }
     }
 
+    /**
+     * Adds values in batches: indexes of the whole batch are calculated first and then the bits are set,
+     * so the hashing and the memory misses of different values overlap.
+     * Returns number of values which have changed any bit.
+     */
+    public int addAll(String[] values) {
+        int numberOfHashes = hashStrategy.getNumberOfHashes();
+        long[] indexes = new long[Math.min(values.length, BATCH_SIZE) * numberOfHashes];
+        int added = 0;
+
+        for (int from = 0; from < values.length; from += BATCH_SIZE) {
+            int to = Math.min(from + BATCH_SIZE, values.length);
+            for (int i = from; i < to; i++) {
+                hashStrategy.indexes(values[i], bitArray.bitSize(), indexes, (i - from) * numberOfHashes);
+            }
+            added += setBits(indexes, to - from, numberOfHashes);
+        }
+        return added;
+    }
+
+    /**
+     * Adds values hashed as 8 little-endian bytes, see {@link #addAll(String[])}
+     */
+    public int addAll(long[] values) {
+        int numberOfHashes = hashStrategy.getNumberOfHashes();
+        long[] indexes = new long[Math.min(values.length, BATCH_SIZE) * numberOfHashes];
+        int added = 0;
+
+        for (int from = 0; from < values.length; from += BATCH_SIZE) {
+            int to = Math.min(from + BATCH_SIZE, values.length);
+            for (int i = from; i < to; i++) {
+                hashStrategy.indexes(values[i], bitArray.bitSize(), indexes, (i - from) * numberOfHashes);
+            }
+            added += setBits(indexes, to - from, numberOfHashes);
+        }
+        return added;
+    }
+
     /**
      * Checks if element is probably exist
      */
     public boolean check(String value) {
-        for (HashFunction hashFunction : hashFunctions) {
-            int index = hashFunction.index(value, bitArray.length);
-            if (!bitArray[index]) {
-                return false;
+        return hashStrategy.mightContain(value, bitArray);
+    }
+
+    /**
+     * Checks value added by {@link #addData(long)}
+     */
+    public boolean check(long value) {
+        return hashStrategy.mightContain(value, bitArray);
+    }
+
+    /**
+     * Checks value added by {@link #addData(byte[])}
+     */
+    public boolean check(byte[] value) {
+        return hashStrategy.mightContain(value, 0, value.length, bitArray);
+    }
+
+    /**
+     * Checks value added by {@link #addData(ByteBuffer, int, int)}
+     */
+    public boolean check(ByteBuffer buf, int off, int len) {
+        return hashStrategy.mightContain(buf, off, len, bitArray);
+    }
+
+    /**
+     * Adds every line of the file as its bytes, the file is mapped to memory and the bytes are hashed in place,
+     * so no line is decoded to a String. Lines end with '\n' or "\r\n" like in {@link Files#lines(Path)}. <br>
+     * Values are found by {@link #check(String)} only if the file charset is the one the hash functions encode
+     * strings with: UTF-8 for bundled MURMUR, FNV, XXH64 and WYHASH functions, cp1251 for Google and secured ones
+     * (MD5, SHA-1, SHA-256), and the charset {@link HashFunction#hash(byte[], int, int)} decodes for other
+     * functions, UTF-8 by default.
+     * Returns number of lines.
+     */
+    public long addLines(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long lines = 0;
+            for (long position = 0; position < size; ) {
+                long length = Math.min(MAPPED_CHUNK_SIZE, size - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+                int end = position + length == size ? (int) length : lastLineEnd(buffer);
+                if (end == 0) {
+                    throw new IOException("Line is longer than " + MAPPED_CHUNK_SIZE + " bytes: " + path);
+                }
+                lines += addLines(buffer, 0, end);
+                position += end;
+            }
+            return lines;
+        }
+    }
+
+    /**
+     * Adds every line between position and limit of the buffer, see {@link #addLines(Path)}
+     */
+    public long addLines(ByteBuffer buffer) {
+        return addLines(buffer, buffer.position(), buffer.limit());
+    }
+
+    private long addLines(ByteBuffer buffer, int from, int to) {
+        long lines = 0;
+        int start = from;
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == '\n') {
+                addLine(buffer, start, i);
+                lines++;
+                start = i + 1;
+            }
+        }
+        if (start < to) {
+            addLine(buffer, start, to);
+            lines++;
+        }
+        return lines;
+    }
+
+    private void addLine(ByteBuffer buffer, int start, int end) {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        addData(buffer, start, end - start);
+    }
+
+    private static int lastLineEnd(ByteBuffer buffer) {
+        for (int i = buffer.limit() - 1; i >= 0; i--) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
             }
         }
+        return 0;
+    }
+
+    /**
+     * Checks values in batches like {@link #addAll(String[])}, {@code results[i]} is the result for {@code values[i]}
+     */
+    public void checkAll(String[] values, boolean[] results) {
+        checkArgument(results.length >= values.length, "results are shorter than values");
+        int numberOfHashes = hashStrategy.getNumberOfHashes();
+        long[] indexes = new long[Math.min(values.length, BATCH_SIZE) * numberOfHashes];
+
+        for (int from = 0; from < values.length; from += BATCH_SIZE) {
+            int to = Math.min(from + BATCH_SIZE, values.length);
+            for (int i = from; i < to; i++) {
+                hashStrategy.indexes(values[i], bitArray.bitSize(), indexes, (i - from) * numberOfHashes);
+            }
+            getBits(indexes, to - from, numberOfHashes, results, from);
+        }
+    }
+
+    /**
+     * Checks values added by {@link #addAll(long[])}, see {@link #checkAll(String[], boolean[])}
+     */
+    public void checkAll(long[] values, boolean[] results) {
+        checkArgument(results.length >= values.length, "results are shorter than values");
+        int numberOfHashes = hashStrategy.getNumberOfHashes();
+        long[] indexes = new long[Math.min(values.length, BATCH_SIZE) * numberOfHashes];
+
+        for (int from = 0; from < values.length; from += BATCH_SIZE) {
+            int to = Math.min(from + BATCH_SIZE, values.length);
+            for (int i = from; i < to; i++) {
+                hashStrategy.indexes(values[i], bitArray.bitSize(), indexes, (i - from) * numberOfHashes);
+            }
+            getBits(indexes, to - from, numberOfHashes, results, from);
+        }
+    }
+
+    /**
+     * Returns fraction of bits which are set, it is cheap since set bits are counted on insert
+     */
+    public double fillRatio() {
+        return (double) bitArray.bitCount() / bitArray.bitSize();
+    }
+
+    /**
+     * Returns estimated number of distinct added values by Swamidass and Baldi {@code -m / k * ln(1 - X / m)},
+     * where X is number of set bits. Returns {@link Long#MAX_VALUE} if all bits are set.
+     *
+     * @see <a href="https://doi.org/10.1021/ci600526a">Mathematical correction for fingerprint similarity measures</a>
+     */
+    public long approximateElementCount() {
+        double numberOfBits = bitArray.bitSize();
+        return Math.round(-numberOfBits / hashStrategy.getNumberOfHashes() * Math.log1p(-fillRatio()));
+    }
+
+    /**
+     * Returns probability that a value which was not added is found, {@code fillRatio ^ k}.
+     * It grows with every insert, so it shows when the filter is past its target false positive rate.
+     */
+    public double expectedFpp() {
+        return Math.pow(fillRatio(), hashStrategy.getNumberOfHashes());
+    }
+
+    /**
+     * Adds all values of the other filter in place, word by word, the result is the same as if they were added
+     * to this filter. Filters must be compatible, see {@link #isCompatible(BloomFilter)}.
+     */
+    public void union(BloomFilter other) {
+        checkCompatible(other);
+        bitArray.or(other.bitArray);
+    }
+
+    /**
+     * Keeps only bits which are set in both filters, in place. The result contains all values added to both
+     * filters, but its false positive rate is higher than of a filter built from the common values only.
+     */
+    public void intersect(BloomFilter other) {
+        checkCompatible(other);
+        bitArray.and(other.bitArray);
+    }
 
-        return true;
+    /**
+     * Returns true if the filters have the same size and map values to the same bits,
+     * so they can be merged
+     */
+    public boolean isCompatible(BloomFilter other) {
+        return bitArray.bitSize() == other.bitArray.bitSize()
+                && hashStrategy.getName().equals(other.hashStrategy.getName())
+                && hashStrategy.getNumberOfHashes() == other.hashStrategy.getNumberOfHashes()
+                && hashStrategy.getHashFunctions().equals(other.hashStrategy.getHashFunctions());
+    }
+
+    private void checkCompatible(BloomFilter other) {
+        checkArgument(isCompatible(other), "Filters are not compatible: %s of %s bits and %s of %s bits",
+                hashStrategy, bitArray.bitSize(), other.hashStrategy, other.bitArray.bitSize());
     }
 
     public Set<HashFunction> getHashFunctions() {
-        return hashFunctions;
+        return hashStrategy.getHashFunctions();
+    }
+
+    public HashStrategy getHashStrategy() {
+        return hashStrategy;
+    }
+
+    public BitArray getBitArray() {
+        return bitArray;
     }
 
     /**
      * Returns bitMap current size
      */
-    public int size() {
-        return bitArray.length;
+    public long size() {
+        return bitArray.bitSize();
+    }
+
+    //--------------------------------- batch ---------------------------------
+
+    private int setBits(long[] indexes, int numberOfValues, int numberOfHashes) {
+        int added = 0;
+        for (int value = 0, i = 0; value < numberOfValues; value++) {
+            boolean changed = false;
+            for (int end = i + numberOfHashes; i < end; i++) {
+                changed |= bitArray.set(indexes[i]);
+            }
+            if (changed) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    private void getBits(long[] indexes, int numberOfValues, int numberOfHashes, boolean[] results, int resultsOffset) {
+        for (int value = 0; value < numberOfValues; value++) {
+            boolean result = true;
+            for (int i = value * numberOfHashes, end = i + numberOfHashes; i < end && result; i++) {
+                result = bitArray.get(indexes[i]);
+            }
+            results[resultsOffset + value] = result;
+        }
     }
 
     //--------------------------------- static ---------------------------------
 
-    public static int getOptimalNumberOfBits(int numberOfItems, double falsePositiveRate) {
-        return (int) Math.ceil(-numberOfItems * Math.log(falsePositiveRate) / Math.pow(Math.log(2d), 2));
+    /**
+     * Counts lines of the file by '\n' bytes, the last line may have no '\n'
+     */
+    static long countLines(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+            long lines = 0;
+            byte last = '\n';
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    last = buffer.get();
+                    if (last == '\n') {
+                        lines++;
+                    }
+                }
+                buffer.clear();
+            }
+            return last == '\n' ? lines : lines + 1;
+        }
+    }
+
+    /**
+     * Returns new filter which contains values of all filters, e.g. of shards built by different workers.
+     * Filters must be compatible, they are not changed.
+     */
+    public static BloomFilter merge(List<? extends BloomFilter> bloomFilters) {
+        checkArgument(!bloomFilters.isEmpty(), "Nothing to merge");
+        BloomFilter first = bloomFilters.get(0);
+        for (BloomFilter bloomFilter : bloomFilters) {
+            first.checkCompatible(bloomFilter);
+        }
+
+        LongBitArray bitArray = new LongBitArray(first.bitArray.bitSize());
+        for (BloomFilter bloomFilter : bloomFilters) {
+            bitArray.or(bloomFilter.bitArray);
+        }
+        return new BloomFilter(bitArray, first.hashStrategy);
+    }
+
+    /**
+     * Returns number of bits for the given number of items and false positive rate, it may be bigger than 2^31
+     */
+    public static long getOptimalNumberOfBits(long numberOfItems, double falsePositiveRate) {
+        return (long) Math.ceil(-numberOfItems * Math.log(falsePositiveRate) / Math.pow(Math.log(2d), 2));
+    }
+
+    /**
+     * Returns number of bits of blocked filter with the given false positive rate.
+     * Values are spread over blocks unevenly (Poisson), so the blocked filter needs more bits than the standard one.
+     */
+    public static long getOptimalNumberOfBitsBlocked(long numberOfItems, double falsePositiveRate) {
+        long numberOfBits = Math.max(getOptimalNumberOfBits(numberOfItems, falsePositiveRate), HashStrategies.BLOCK_SIZE);
+        while (getBlockedFalsePositiveRate(numberOfBits, numberOfItems,
+                getOptimalNumberOfFunctions(numberOfBits, numberOfItems)) > falsePositiveRate) {
+            numberOfBits = (long) Math.ceil(numberOfBits * 1.01);
+        }
+        return numberOfBits;
+    }
+
+    /**
+     * Returns expected false positive rate of blocked filter, it is the rate of a standard filter
+     * of one block averaged over the Poisson distributed number of values per block.
+     */
+    public static double getBlockedFalsePositiveRate(long numberOfBits, long numberOfItems, int numberOfFunctions) {
+        double blockSize = HashStrategies.BLOCK_SIZE;
+        double itemsPerBlock = numberOfItems * blockSize / numberOfBits;
+        int maxItems = (int) Math.ceil(itemsPerBlock + 10 * Math.sqrt(itemsPerBlock) + 10);
+
+        double rate = 0;
+        double poisson = Math.exp(-itemsPerBlock);
+        for (int i = 0; i <= maxItems; i++) {
+            rate += poisson * Math.pow(1 - Math.pow(1 - 1 / blockSize, (double) numberOfFunctions * i), numberOfFunctions);
+            poisson *= itemsPerBlock / (i + 1);
+        }
+        return rate;
     }
 
-    public static int getOptimalNumberOfFunctions(double numberOfBits, int numberOfItems) {
+    public static int getOptimalNumberOfFunctions(double numberOfBits, long numberOfItems) {
         return (int) Math.ceil(numberOfBits / numberOfItems * Math.log(2));
     }
 
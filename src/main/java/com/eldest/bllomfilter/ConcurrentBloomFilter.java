@@ -0,0 +1,80 @@
+package com.eldest.bllomfilter;
+
+import com.eldest.bllomfilter.bits.AtomicBitArray;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe BloomFilter, many threads can add and check values at the same time without locks. <br>
+ * Bits are set by CAS, {@link #check(String)} is wait-free.
+ * Use {@link BloomFilter.Builder#buildConcurrent()} to create it.
+ */
+public class ConcurrentBloomFilter extends BloomFilter {
+
+    private final LongAdder insertions = new LongAdder();
+
+    ConcurrentBloomFilter(AtomicBitArray bitArray, HashStrategy hashStrategy) {
+        super(bitArray, hashStrategy);
+    }
+
+    //--------------------------------- f ---------------------------------
+
+    @Override
+    public boolean addData(String value) {
+        boolean changed = super.addData(value);
+        if (changed) {
+            insertions.increment();
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean addData(long value) {
+        boolean changed = super.addData(value);
+        if (changed) {
+            insertions.increment();
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean addData(byte[] value) {
+        boolean changed = super.addData(value);
+        if (changed) {
+            insertions.increment();
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean addData(ByteBuffer buf, int off, int len) {
+        boolean changed = super.addData(buf, off, len);
+        if (changed) {
+            insertions.increment();
+        }
+        return changed;
+    }
+
+    @Override
+    public int addAll(String[] values) {
+        int added = super.addAll(values);
+        insertions.add(added);
+        return added;
+    }
+
+    @Override
+    public int addAll(long[] values) {
+        int added = super.addAll(values);
+        insertions.add(added);
+        return added;
+    }
+
+    /**
+     * Returns number of added values which have changed any bit.
+     * Values added concurrently may be not counted yet, duplicates and false positives are not counted.
+     */
+    public long getApproximateInsertions() {
+        return insertions.sum();
+    }
+}
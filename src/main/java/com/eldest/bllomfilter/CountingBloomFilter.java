@@ -0,0 +1,90 @@
+package com.eldest.bllomfilter;
+
+import com.eldest.bllomfilter.bits.CounterArray;
+import com.eldest.bllomfilter.hash.HashFunction;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * BloomFilter which supports {@link #remove(String)}, every bit is replaced with a 4-bit counter. <br>
+ * It takes 4 times more memory than BloomFilter of the same size.
+ * Use {@link BloomFilter.Builder#buildCounting()} to create it. Not thread safe.
+ */
+public class CountingBloomFilter {
+
+    private final HashStrategy hashStrategy;
+    private final CounterArray counterArray;
+    private final long[] indexes;
+
+    CountingBloomFilter(CounterArray counterArray, HashStrategy hashStrategy) {
+        this.counterArray = counterArray;
+        this.hashStrategy = hashStrategy;
+        this.indexes = new long[hashStrategy.getNumberOfHashes()];
+    }
+
+    //--------------------------------- f ---------------------------------
+
+    /**
+     * Adds value, returns true if any counter was zero, so the value was definitely not there before
+     */
+    public boolean addData(String value) {
+        hashStrategy.indexes(value, counterArray.size(), indexes, 0);
+
+        boolean changed = false;
+        for (long index : indexes) {
+            changed |= counterArray.increment(index) == 0;
+        }
+        return changed;
+    }
+
+    public void addData(List<String> valueList) {
+        for (String value : valueList) {
+            addData(value);
+        }
+    }
+
+    /**
+     * Removes value which was added before, returns false if the value is definitely not there.
+     * Removing a value which was not added (a false positive) may remove other values.
+     */
+    public boolean remove(String value) {
+        if (!check(value)) {
+            return false;
+        }
+
+        for (long index : indexes) {
+            counterArray.decrement(index);
+        }
+        return true;
+    }
+
+    /**
+     * Checks if element is probably exist
+     */
+    public boolean check(String value) {
+        hashStrategy.indexes(value, counterArray.size(), indexes, 0);
+
+        for (long index : indexes) {
+            if (counterArray.get(index) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public Set<HashFunction> getHashFunctions() {
+        return hashStrategy.getHashFunctions();
+    }
+
+    public HashStrategy getHashStrategy() {
+        return hashStrategy;
+    }
+
+    /**
+     * Returns number of counters
+     */
+    public long size() {
+        return counterArray.size();
+    }
+}
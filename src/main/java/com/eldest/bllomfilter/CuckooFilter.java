@@ -0,0 +1,324 @@
+package com.eldest.bllomfilter;
+
+import com.eldest.bllomfilter.hash.HashFunction;
+import com.eldest.bllomfilter.hash.Hashes;
+import com.eldest.bllomfilter.hash.implementation.MurmurHash;
+import com.google.common.base.MoreObjects;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Cuckoo filter, alternative to BloomFilter which supports {@link #remove(String)}
+ * and takes less space for false positive rate under ~0.5%. <br>
+ * Every value is a fingerprint stored in one of two buckets of 4 slots, so a lookup reads 2 buckets.
+ * The second bucket is calculated from the first one and the fingerprint (partial-key cuckoo hashing),
+ * so fingerprints can be moved without the value. Not thread safe.
+ *
+ * @see <a href="https://www.cs.cmu.edu/~dga/papers/cuckoo-conext2014.pdf">Cuckoo Filter: Practically Better Than Bloom</a>
+ */
+public class CuckooFilter {
+
+    public static final int SLOTS_PER_BUCKET = 4;
+
+    private static final int MAX_KICKS = 500;
+    private static final double LOAD_FACTOR = 0.95;
+
+    private final HashFunction hashFunction;
+    private final int fingerprintBits;
+    private final int fingerprintMask;
+    private final int bucketMask;
+    private final long[] data;
+
+    private int victimFingerprint;
+    private int victimBucket;
+    private long count;
+    private long random = 0x9e3779b97f4a7c15L;
+
+    private CuckooFilter(HashFunction hashFunction, int numberOfBuckets, int fingerprintBits) {
+        this.hashFunction = hashFunction;
+        this.fingerprintBits = fingerprintBits;
+        this.fingerprintMask = (int) ((1L << fingerprintBits) - 1);
+        this.bucketMask = numberOfBuckets - 1;
+        this.data = new long[(int) getNumberOfWords(numberOfBuckets, fingerprintBits)];
+    }
+
+    //--------------------------------- Builder ---------------------------------
+
+    /**
+     * <p>Uses to create new CuckooFilter.</p>
+     * {@code capacity} is the expected number of values, 1000 by default. <br>
+     * {@code falsePositiveRate} gives fingerprint size {@code log2(2 * 4 / falsePositiveRate)}, 0.01 by default. <br>
+     * {@link Hashes#XXH64} is used by default. Fingerprint and bucket are both taken from one
+     * {@link HashFunction#hash64(String)}, a function of 32 {@link HashFunction#bits()} gives only 2^32 distinct
+     * pairs of them, which raises the false positive rate of big filters.
+     */
+    public static class Builder {
+
+        private HashFunction hashFunction = Hashes.XXH64;
+        private int capacity = 1000;
+        private double falsePositiveRate = 0.01;
+
+        //--------------------------------- f ---------------------------------
+
+        public Builder setHashFunction(HashFunction hashFunction) {
+            this.hashFunction = hashFunction;
+            return this;
+        }
+
+        public Builder setCapacity(int capacity) {
+            this.capacity = capacity;
+            return this;
+        }
+
+        public Builder setFalsePositiveRate(double falsePositiveRate) {
+            this.falsePositiveRate = falsePositiveRate;
+            return this;
+        }
+
+        public CuckooFilter build() {
+            checkArgument(capacity > 0, "capacity must be positive: %s", capacity);
+            checkArgument(falsePositiveRate > 0 && falsePositiveRate < 1,
+                    "falsePositiveRate must be in (0, 1): %s", falsePositiveRate);
+
+            int numberOfBuckets = getNumberOfBuckets(capacity);
+            int fingerprintBits = getFingerprintBits(falsePositiveRate);
+            long numberOfWords = getNumberOfWords(numberOfBuckets, fingerprintBits);
+            checkArgument(numberOfWords <= Integer.MAX_VALUE,
+                    "capacity %s with %s-bit fingerprints needs %s words", capacity, fingerprintBits, numberOfWords);
+
+            return new CuckooFilter(hashFunction, numberOfBuckets, fingerprintBits);
+        }
+    }
+
+    //--------------------------------- f ---------------------------------
+
+    /**
+     * Adds value, returns false if the filter is full and the value was not added
+     */
+    public boolean addData(String value) {
+        if (victimFingerprint != 0) {
+            return false;
+        }
+
+        long hash64 = hashFunction.hash64(value);
+        int fingerprint = fingerprint(hash64);
+        int bucket1 = bucket(hash64);
+        int bucket2 = alternateBucket(bucket1, fingerprint);
+
+        count++;
+        if (insert(bucket1, fingerprint) || insert(bucket2, fingerprint)) {
+            return true;
+        }
+
+        int bucket = (nextRandom() & 1) == 0 ? bucket1 : bucket2;
+        for (int kick = 0; kick < MAX_KICKS; kick++) {
+            int slot = (nextRandom() >>> 1) % SLOTS_PER_BUCKET;
+            int kicked = getSlot(bucket, slot);
+            setSlot(bucket, slot, fingerprint);
+            fingerprint = kicked;
+
+            bucket = alternateBucket(bucket, fingerprint);
+            if (insert(bucket, fingerprint)) {
+                return true;
+            }
+        }
+
+        // value is added, but the kicked out fingerprint has no place, so the filter is full
+        victimFingerprint = fingerprint;
+        victimBucket = bucket;
+        return true;
+    }
+
+    public void addData(List<String> valueList) {
+        for (String value : valueList) {
+            addData(value);
+        }
+    }
+
+    /**
+     * Checks if element is probably exist
+     */
+    public boolean check(String value) {
+        long hash64 = hashFunction.hash64(value);
+        int fingerprint = fingerprint(hash64);
+        int bucket1 = bucket(hash64);
+        int bucket2 = alternateBucket(bucket1, fingerprint);
+
+        return contains(bucket1, fingerprint) || contains(bucket2, fingerprint)
+                || isVictim(bucket1, bucket2, fingerprint);
+    }
+
+    /**
+     * Removes value which was added before, returns false if the value is definitely not there.
+     * Removing a value which was not added (a false positive) may remove other values.
+     */
+    public boolean remove(String value) {
+        long hash64 = hashFunction.hash64(value);
+        int fingerprint = fingerprint(hash64);
+        int bucket1 = bucket(hash64);
+        int bucket2 = alternateBucket(bucket1, fingerprint);
+
+        if (isVictim(bucket1, bucket2, fingerprint)) {
+            victimFingerprint = 0;
+        } else if (!delete(bucket1, fingerprint) && !delete(bucket2, fingerprint)) {
+            return false;
+        } else if (victimFingerprint != 0) {
+            // there is a free slot now, so the victim may have a place
+            int fingerprintToInsert = victimFingerprint;
+            victimFingerprint = 0;
+            relocate(victimBucket, fingerprintToInsert);
+        }
+
+        count--;
+        return true;
+    }
+
+    /**
+     * Returns number of added values
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns number of fingerprint slots
+     */
+    public long size() {
+        return (long) (bucketMask + 1) * SLOTS_PER_BUCKET;
+    }
+
+    public int getFingerprintBits() {
+        return fingerprintBits;
+    }
+
+    //--------------------------------- static ---------------------------------
+
+    public static int getFingerprintBits(double falsePositiveRate) {
+        int bits = (int) Math.ceil(Math.log(2d * SLOTS_PER_BUCKET / falsePositiveRate) / Math.log(2));
+        return Math.max(4, Math.min(bits, Integer.SIZE - 1));
+    }
+
+    /**
+     * Number of buckets is a power of two, so the alternate bucket is {@code bucket ^ hash(fingerprint)}
+     */
+    public static int getNumberOfBuckets(int capacity) {
+        long numberOfBuckets = (long) Math.ceil(capacity / (SLOTS_PER_BUCKET * LOAD_FACTOR));
+        checkArgument(numberOfBuckets <= 1 << 30, "capacity is too big: %s", capacity);
+        return Integer.highestOneBit((int) Math.max(1, numberOfBuckets * 2 - 1));
+    }
+
+    /**
+     * Returns number of 64-bit words which hold all slots, counted in long so big filters don't overflow
+     */
+    static long getNumberOfWords(int numberOfBuckets, int fingerprintBits) {
+        return ((long) numberOfBuckets * SLOTS_PER_BUCKET * fingerprintBits + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    //--------------------------------- buckets ---------------------------------
+
+    /**
+     * Puts already counted fingerprint into one of its buckets or back to the victim
+     */
+    private void relocate(int bucket, int fingerprint) {
+        if (insert(bucket, fingerprint) || insert(alternateBucket(bucket, fingerprint), fingerprint)) {
+            return;
+        }
+        victimFingerprint = fingerprint;
+        victimBucket = bucket;
+    }
+
+    private boolean insert(int bucket, int fingerprint) {
+        for (int slot = 0; slot < SLOTS_PER_BUCKET; slot++) {
+            if (getSlot(bucket, slot) == 0) {
+                setSlot(bucket, slot, fingerprint);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean delete(int bucket, int fingerprint) {
+        for (int slot = 0; slot < SLOTS_PER_BUCKET; slot++) {
+            if (getSlot(bucket, slot) == fingerprint) {
+                setSlot(bucket, slot, 0);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean contains(int bucket, int fingerprint) {
+        for (int slot = 0; slot < SLOTS_PER_BUCKET; slot++) {
+            if (getSlot(bucket, slot) == fingerprint) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isVictim(int bucket1, int bucket2, int fingerprint) {
+        return victimFingerprint == fingerprint && (victimBucket == bucket1 || victimBucket == bucket2);
+    }
+
+    /**
+     * Fingerprint uses the high bits, bucket uses the low ones. Zero means an empty slot, so it is never used.
+     */
+    private int fingerprint(long hash64) {
+        int fingerprint = (int) (hash64 >>> (Long.SIZE - fingerprintBits));
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+
+    private int bucket(long hash64) {
+        return (int) hash64 & bucketMask;
+    }
+
+    private int alternateBucket(int bucket, int fingerprint) {
+        return (bucket ^ (int) MurmurHash.fmix64(fingerprint)) & bucketMask;
+    }
+
+    private int nextRandom() {
+        random ^= random << 13;
+        random ^= random >>> 7;
+        random ^= random << 17;
+        return (int) (random >>> 32);
+    }
+
+    //--------------------------------- slots ---------------------------------
+
+    private int getSlot(int bucket, int slot) {
+        long bitIndex = ((long) bucket * SLOTS_PER_BUCKET + slot) * fingerprintBits;
+        int wordIndex = (int) (bitIndex >>> 6);
+        int shift = (int) (bitIndex & 63);
+
+        long bits = data[wordIndex] >>> shift;
+        if (shift + fingerprintBits > Long.SIZE) {
+            bits |= data[wordIndex + 1] << (Long.SIZE - shift);
+        }
+        return (int) bits & fingerprintMask;
+    }
+
+    private void setSlot(int bucket, int slot, int fingerprint) {
+        long bitIndex = ((long) bucket * SLOTS_PER_BUCKET + slot) * fingerprintBits;
+        int wordIndex = (int) (bitIndex >>> 6);
+        int shift = (int) (bitIndex & 63);
+
+        data[wordIndex] = (data[wordIndex] & ~((long) fingerprintMask << shift)) | ((long) fingerprint << shift);
+        if (shift + fingerprintBits > Long.SIZE) {
+            int rest = Long.SIZE - shift;
+            data[wordIndex + 1] = (data[wordIndex + 1] & ~((long) fingerprintMask >>> rest))
+                    | ((long) fingerprint >>> rest);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("hashFunction", hashFunction)
+                .add("buckets", bucketMask + 1)
+                .add("fingerprintBits", fingerprintBits)
+                .add("count", count)
+                .toString();
+    }
+}
@@ -0,0 +1,498 @@
+package com.eldest.bllomfilter;
+
+import com.eldest.bllomfilter.bits.BitArray;
+import com.eldest.bllomfilter.hash.HashFunction;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableSet;
+
+import java.nio.ByteBuffer;
+import java.util.Set;
+
+/**
+ * Contains {@link HashStrategy} implementations.
+ *
+ * @see <a href="https://www.eecs.harvard.edu/~michaelm/postscripts/rsa2008.pdf">
+ * Less Hashing, Same Performance: Building a Better Bloom Filter</a>
+ * @see <a href="http://algo2.iti.kit.edu/documents/cacheefficientbloomfilters-jea.pdf">
+ * Cache-, Hash- and Space-Efficient Bloom Filters</a>
+ */
+public class HashStrategies {
+
+    /** Number of bits in one block of blocked strategy, 64 bytes is one cache line */
+    public static final int BLOCK_SIZE = 512;
+
+    private static final int BLOCK_ADDRESS_BITS = 9;
+
+    private HashStrategies() { /* closed */ }
+
+    /**
+     * Every hash function gives one bit, so number of hashes is limited by the size of the set.
+     * Filters bigger than 2^31 bits need functions of 64 {@link HashFunction#bits()}, a 32-bit function
+     * addresses only 2^32 positions and its collisions raise the false positive rate of billions of items.
+     */
+    public static HashStrategy functions(Set<HashFunction> hashFunctions) {
+        return new FunctionsStrategy(hashFunctions);
+    }
+
+    /**
+     * One 64-bit hash is h1 and the same hash rotated by 32 bits is h2, i-th bit is {@code h1 + i * h2}
+     * reduced to the filter size by {@link HashFunction#reduce(long, long)}.
+     * Costs one hash computation for any number of hashes.
+     */
+    public static HashStrategy doubleHashing(HashFunction hashFunction, int numberOfHashes) {
+        return new DoubleHashingStrategy(hashFunction, numberOfHashes);
+    }
+
+    /**
+     * All bits of the value are set inside one block of {@link #BLOCK_SIZE} bits,
+     * so a lookup touches one cache line. Size of the filter must be a multiple of {@link #BLOCK_SIZE}.
+     */
+    public static HashStrategy blocked(HashFunction hashFunction, int numberOfHashes) {
+        return new BlockedStrategy(hashFunction, numberOfHashes);
+    }
+
+    //--------------------------------- functions ---------------------------------
+
+    static class FunctionsStrategy implements HashStrategy {
+        private final Set<HashFunction> hashFunctions;
+
+        FunctionsStrategy(Set<HashFunction> hashFunctions) {
+            this.hashFunctions = hashFunctions;
+        }
+
+        @Override
+        public String getName() {
+            return "FUNCTIONS";
+        }
+
+        @Override
+        public int getNumberOfHashes() {
+            return hashFunctions.size();
+        }
+
+        @Override
+        public Set<HashFunction> getHashFunctions() {
+            return hashFunctions;
+        }
+
+        @Override
+        public boolean put(String value, BitArray bitArray) {
+            boolean changed = false;
+            for (HashFunction hashFunction : hashFunctions) {
+                changed |= bitArray.set(index(hashFunction, value, bitArray.bitSize()));
+            }
+            return changed;
+        }
+
+        @Override
+        public boolean mightContain(String value, BitArray bitArray) {
+            for (HashFunction hashFunction : hashFunctions) {
+                if (!bitArray.get(index(hashFunction, value, bitArray.bitSize()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean put(long value, BitArray bitArray) {
+            boolean changed = false;
+            for (HashFunction hashFunction : hashFunctions) {
+                changed |= bitArray.set(index(hashFunction, value, bitArray.bitSize()));
+            }
+            return changed;
+        }
+
+        @Override
+        public boolean mightContain(long value, BitArray bitArray) {
+            for (HashFunction hashFunction : hashFunctions) {
+                if (!bitArray.get(index(hashFunction, value, bitArray.bitSize()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean put(byte[] buf, int off, int len, BitArray bitArray) {
+            boolean changed = false;
+            for (HashFunction hashFunction : hashFunctions) {
+                changed |= bitArray.set(index(hashFunction, buf, off, len, bitArray.bitSize()));
+            }
+            return changed;
+        }
+
+        @Override
+        public boolean mightContain(byte[] buf, int off, int len, BitArray bitArray) {
+            for (HashFunction hashFunction : hashFunctions) {
+                if (!bitArray.get(index(hashFunction, buf, off, len, bitArray.bitSize()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean put(ByteBuffer buf, int off, int len, BitArray bitArray) {
+            boolean changed = false;
+            for (HashFunction hashFunction : hashFunctions) {
+                changed |= bitArray.set(index(hashFunction, buf, off, len, bitArray.bitSize()));
+            }
+            return changed;
+        }
+
+        @Override
+        public boolean mightContain(ByteBuffer buf, int off, int len, BitArray bitArray) {
+            for (HashFunction hashFunction : hashFunctions) {
+                if (!bitArray.get(index(hashFunction, buf, off, len, bitArray.bitSize()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void indexes(String value, long size, long[] indexes, int offset) {
+            for (HashFunction hashFunction : hashFunctions) {
+                indexes[offset++] = index(hashFunction, value, size);
+            }
+        }
+
+        @Override
+        public void indexes(byte[] buf, int off, int len, long size, long[] indexes, int offset) {
+            for (HashFunction hashFunction : hashFunctions) {
+                indexes[offset++] = index(hashFunction, buf, off, len, size);
+            }
+        }
+
+        @Override
+        public void indexes(long value, long size, long[] indexes, int offset) {
+            for (HashFunction hashFunction : hashFunctions) {
+                indexes[offset++] = index(hashFunction, value, size);
+            }
+        }
+
+        @Override
+        public void indexes(ByteBuffer buf, int off, int len, long size, long[] indexes, int offset) {
+            for (HashFunction hashFunction : hashFunctions) {
+                indexes[offset++] = index(hashFunction, buf, off, len, size);
+            }
+        }
+
+        /**
+         * 32-bit hash of a function addresses 2^31 bits at most, bigger filters use {@link HashFunction#hash64(String)}
+         */
+        private static long index(HashFunction hashFunction, String value, long size) {
+            return size <= Integer.MAX_VALUE
+                    ? hashFunction.index(value, (int) size)
+                    : HashFunction.reduce(hashFunction.hash64(value), size);
+        }
+
+        private static long index(HashFunction hashFunction, long value, long size) {
+            return size <= Integer.MAX_VALUE
+                    ? hashFunction.index(value, (int) size)
+                    : HashFunction.reduce(hashFunction.hash64(value), size);
+        }
+
+        private static long index(HashFunction hashFunction, byte[] buf, int off, int len, long size) {
+            return size <= Integer.MAX_VALUE
+                    ? hashFunction.index(buf, off, len, (int) size)
+                    : HashFunction.reduce(hashFunction.hash64(buf, off, len), size);
+        }
+
+        private static long index(HashFunction hashFunction, ByteBuffer buf, int off, int len, long size) {
+            return size <= Integer.MAX_VALUE
+                    ? hashFunction.index(buf, off, len, (int) size)
+                    : HashFunction.reduce(hashFunction.hash64(buf, off, len), size);
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("hashFunctions", hashFunctions)
+                    .toString();
+        }
+    }
+
+    //--------------------------------- double hashing ---------------------------------
+
+    static class DoubleHashingStrategy implements HashStrategy {
+        private final HashFunction hashFunction;
+        private final int numberOfHashes;
+
+        DoubleHashingStrategy(HashFunction hashFunction, int numberOfHashes) {
+            if (numberOfHashes <= 0) {
+                throw new IllegalArgumentException("numberOfHashes must be positive: " + numberOfHashes);
+            }
+            this.hashFunction = hashFunction;
+            this.numberOfHashes = numberOfHashes;
+        }
+
+        @Override
+        public String getName() {
+            return "DOUBLE_HASHING";
+        }
+
+        @Override
+        public int getNumberOfHashes() {
+            return numberOfHashes;
+        }
+
+        @Override
+        public Set<HashFunction> getHashFunctions() {
+            return ImmutableSet.of(hashFunction);
+        }
+
+        @Override
+        public boolean put(String value, BitArray bitArray) {
+            return putHash(hashFunction.hash64(value), bitArray);
+        }
+
+        @Override
+        public boolean mightContain(String value, BitArray bitArray) {
+            return mightContainHash(hashFunction.hash64(value), bitArray);
+        }
+
+        @Override
+        public boolean put(long value, BitArray bitArray) {
+            return putHash(hashFunction.hash64(value), bitArray);
+        }
+
+        @Override
+        public boolean mightContain(long value, BitArray bitArray) {
+            return mightContainHash(hashFunction.hash64(value), bitArray);
+        }
+
+        @Override
+        public boolean put(byte[] buf, int off, int len, BitArray bitArray) {
+            return putHash(hashFunction.hash64(buf, off, len), bitArray);
+        }
+
+        @Override
+        public boolean mightContain(byte[] buf, int off, int len, BitArray bitArray) {
+            return mightContainHash(hashFunction.hash64(buf, off, len), bitArray);
+        }
+
+        @Override
+        public boolean put(ByteBuffer buf, int off, int len, BitArray bitArray) {
+            return putHash(hashFunction.hash64(buf, off, len), bitArray);
+        }
+
+        @Override
+        public boolean mightContain(ByteBuffer buf, int off, int len, BitArray bitArray) {
+            return mightContainHash(hashFunction.hash64(buf, off, len), bitArray);
+        }
+
+        @Override
+        public void indexes(String value, long size, long[] indexes, int offset) {
+            hashIndexes(hashFunction.hash64(value), size, indexes, offset);
+        }
+
+        @Override
+        public void indexes(byte[] buf, int off, int len, long size, long[] indexes, int offset) {
+            hashIndexes(hashFunction.hash64(buf, off, len), size, indexes, offset);
+        }
+
+        @Override
+        public void indexes(long value, long size, long[] indexes, int offset) {
+            hashIndexes(hashFunction.hash64(value), size, indexes, offset);
+        }
+
+        @Override
+        public void indexes(ByteBuffer buf, int off, int len, long size, long[] indexes, int offset) {
+            hashIndexes(hashFunction.hash64(buf, off, len), size, indexes, offset);
+        }
+
+        private boolean putHash(long hash64, BitArray bitArray) {
+            long hash2 = Long.rotateLeft(hash64, 32);
+            long size = bitArray.bitSize();
+
+            boolean changed = false;
+            for (int i = 1; i <= numberOfHashes; i++) {
+                changed |= bitArray.set(index(hash64 + i * hash2, size));
+            }
+            return changed;
+        }
+
+        private boolean mightContainHash(long hash64, BitArray bitArray) {
+            long hash2 = Long.rotateLeft(hash64, 32);
+            long size = bitArray.bitSize();
+
+            for (int i = 1; i <= numberOfHashes; i++) {
+                if (!bitArray.get(index(hash64 + i * hash2, size))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void hashIndexes(long hash64, long size, long[] indexes, int offset) {
+            long hash2 = Long.rotateLeft(hash64, 32);
+            for (int i = 1; i <= numberOfHashes; i++) {
+                indexes[offset++] = index(hash64 + i * hash2, size);
+            }
+        }
+
+        private static long index(long combinedHash, long size) {
+            return HashFunction.reduce(combinedHash, size);
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("hashFunction", hashFunction)
+                    .add("numberOfHashes", numberOfHashes)
+                    .toString();
+        }
+    }
+
+    //--------------------------------- blocked ---------------------------------
+
+    static class BlockedStrategy implements HashStrategy {
+        private final HashFunction hashFunction;
+        private final int numberOfHashes;
+
+        BlockedStrategy(HashFunction hashFunction, int numberOfHashes) {
+            if (numberOfHashes <= 0) {
+                throw new IllegalArgumentException("numberOfHashes must be positive: " + numberOfHashes);
+            }
+            this.hashFunction = hashFunction;
+            this.numberOfHashes = numberOfHashes;
+        }
+
+        @Override
+        public String getName() {
+            return "BLOCKED";
+        }
+
+        @Override
+        public int getNumberOfHashes() {
+            return numberOfHashes;
+        }
+
+        @Override
+        public Set<HashFunction> getHashFunctions() {
+            return ImmutableSet.of(hashFunction);
+        }
+
+        @Override
+        public boolean put(String value, BitArray bitArray) {
+            return putHash(hashFunction.hash64(value), bitArray);
+        }
+
+        @Override
+        public boolean mightContain(String value, BitArray bitArray) {
+            return mightContainHash(hashFunction.hash64(value), bitArray);
+        }
+
+        @Override
+        public boolean put(long value, BitArray bitArray) {
+            return putHash(hashFunction.hash64(value), bitArray);
+        }
+
+        @Override
+        public boolean mightContain(long value, BitArray bitArray) {
+            return mightContainHash(hashFunction.hash64(value), bitArray);
+        }
+
+        @Override
+        public boolean put(byte[] buf, int off, int len, BitArray bitArray) {
+            return putHash(hashFunction.hash64(buf, off, len), bitArray);
+        }
+
+        @Override
+        public boolean mightContain(byte[] buf, int off, int len, BitArray bitArray) {
+            return mightContainHash(hashFunction.hash64(buf, off, len), bitArray);
+        }
+
+        @Override
+        public boolean put(ByteBuffer buf, int off, int len, BitArray bitArray) {
+            return putHash(hashFunction.hash64(buf, off, len), bitArray);
+        }
+
+        @Override
+        public boolean mightContain(ByteBuffer buf, int off, int len, BitArray bitArray) {
+            return mightContainHash(hashFunction.hash64(buf, off, len), bitArray);
+        }
+
+        @Override
+        public void indexes(String value, long size, long[] indexes, int offset) {
+            hashIndexes(hashFunction.hash64(value), size, indexes, offset);
+        }
+
+        @Override
+        public void indexes(byte[] buf, int off, int len, long size, long[] indexes, int offset) {
+            hashIndexes(hashFunction.hash64(buf, off, len), size, indexes, offset);
+        }
+
+        @Override
+        public void indexes(long value, long size, long[] indexes, int offset) {
+            hashIndexes(hashFunction.hash64(value), size, indexes, offset);
+        }
+
+        @Override
+        public void indexes(ByteBuffer buf, int off, int len, long size, long[] indexes, int offset) {
+            hashIndexes(hashFunction.hash64(buf, off, len), size, indexes, offset);
+        }
+
+        private boolean putHash(long hash64, BitArray bitArray) {
+            long blockStart = blockStart(hash64, bitArray.bitSize());
+            int hash1 = (int) hash64;
+            int hash2 = secondHash(hash64);
+
+            boolean changed = false;
+            for (int i = 1; i <= numberOfHashes; i++) {
+                changed |= bitArray.set(blockStart + ((hash1 + i * hash2) >>> (Integer.SIZE - BLOCK_ADDRESS_BITS)));
+            }
+            return changed;
+        }
+
+        private boolean mightContainHash(long hash64, BitArray bitArray) {
+            long blockStart = blockStart(hash64, bitArray.bitSize());
+            int hash1 = (int) hash64;
+            int hash2 = secondHash(hash64);
+
+            for (int i = 1; i <= numberOfHashes; i++) {
+                if (!bitArray.get(blockStart + ((hash1 + i * hash2) >>> (Integer.SIZE - BLOCK_ADDRESS_BITS)))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void hashIndexes(long hash64, long size, long[] indexes, int offset) {
+            long blockStart = blockStart(hash64, size);
+            int hash1 = (int) hash64;
+            int hash2 = secondHash(hash64);
+            for (int i = 1; i <= numberOfHashes; i++) {
+                indexes[offset++] = blockStart + ((hash1 + i * hash2) >>> (Integer.SIZE - BLOCK_ADDRESS_BITS));
+            }
+        }
+
+        /**
+         * High bits choose the block, so they are mixed with the low ones to make h2 independent of it
+         */
+        private static int secondHash(long hash64) {
+            return (int) ((hash64 * 0x9e3779b97f4a7c15L) >>> 32) | 1;
+        }
+
+        /**
+         * Block is chosen by multiply-shift of the high 32 bits, bits inside it use the top bits of h1 + i * h2
+         */
+        private static long blockStart(long hash64, long size) {
+            long numberOfBlocks = size >>> BLOCK_ADDRESS_BITS;
+            if (numberOfBlocks == 0) {
+                throw new IllegalArgumentException("Filter size is less than one block: " + size);
+            }
+            return HashFunction.reduce(hash64, numberOfBlocks) << BLOCK_ADDRESS_BITS;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("hashFunction", hashFunction)
+                    .add("numberOfHashes", numberOfHashes)
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.eldest.bllomfilter;
+
+import com.eldest.bllomfilter.bits.BitArray;
+import com.eldest.bllomfilter.hash.HashFunction;
+
+import java.nio.ByteBuffer;
+import java.util.Set;
+
+/**
+ * Maps value to the bits of BloomFilter.
+ *
+ * @see HashStrategies
+ */
+public interface HashStrategy {
+
+    String getName();
+
+    /**
+     * Returns number of bits which are set for each value
+     */
+    int getNumberOfHashes();
+
+    Set<HashFunction> getHashFunctions();
+
+    /**
+     * Sets bits for the value, returns true if any bit was changed
+     */
+    boolean put(String value, BitArray bitArray);
+
+    /**
+     * Returns true if all bits of the value are set
+     */
+    boolean mightContain(String value, BitArray bitArray);
+
+    /**
+     * Same as {@link #put(String, BitArray)} for the value given as 8 little-endian bytes,
+     * see {@link HashFunction#hashLong(long)}
+     */
+    boolean put(long value, BitArray bitArray);
+
+    /**
+     * Same as {@link #mightContain(String, BitArray)} for the value given as 8 little-endian bytes
+     */
+    boolean mightContain(long value, BitArray bitArray);
+
+    /**
+     * Same as {@link #put(String, BitArray)} for the value given as bytes,
+     * see {@link HashFunction#hash(byte[], int, int)}
+     */
+    boolean put(byte[] buf, int off, int len, BitArray bitArray);
+
+    /**
+     * Same as {@link #mightContain(String, BitArray)} for the value given as bytes
+     */
+    boolean mightContain(byte[] buf, int off, int len, BitArray bitArray);
+
+    /**
+     * Same as {@link #put(byte[], int, int, BitArray)} for bytes of the buffer, e.g. of a mapped file,
+     * see {@link HashFunction#hash(ByteBuffer, int, int)}
+     */
+    boolean put(ByteBuffer buf, int off, int len, BitArray bitArray);
+
+    /**
+     * Same as {@link #mightContain(byte[], int, int, BitArray)} for bytes of the buffer
+     */
+    boolean mightContain(ByteBuffer buf, int off, int len, BitArray bitArray);
+
+    /**
+     * Writes {@link #getNumberOfHashes()} bit indexes of the value starting from {@code indexes[offset]}
+     */
+    void indexes(String value, long size, long[] indexes, int offset);
+
+    /**
+     * Same as {@link #indexes(String, long, long[], int)} for the value given as bytes,
+     * see {@link HashFunction#hash(byte[], int, int)}
+     */
+    void indexes(byte[] buf, int off, int len, long size, long[] indexes, int offset);
+
+    /**
+     * Same as {@link #indexes(String, long, long[], int)} for the value given as 8 little-endian bytes
+     */
+    void indexes(long value, long size, long[] indexes, int offset);
+
+    /**
+     * Same as {@link #indexes(byte[], int, int, long, long[], int)} for bytes of the buffer,
+     * see {@link HashFunction#hash(ByteBuffer, int, int)}
+     */
+    void indexes(ByteBuffer buf, int off, int len, long size, long[] indexes, int offset);
+}
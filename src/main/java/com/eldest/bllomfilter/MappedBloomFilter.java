@@ -0,0 +1,116 @@
+package com.eldest.bllomfilter;
+
+import com.eldest.bllomfilter.bits.MappedBitArray;
+import com.eldest.bllomfilter.hash.HashFunction;
+import com.eldest.bllomfilter.serialization.SerializationException;
+import com.eldest.bllomfilter.serialization.Serializations;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+
+/**
+ * Read-only BloomFilter which checks values straight from a file mapped to memory. <br>
+ * The file is written by {@link Serializations#writeTo(BloomFilter, java.io.OutputStream)}.
+ * Loading is fast, the page cache is shared between processes and bits are not on the heap.
+ * It is not a {@link BloomFilter}, so methods which add or merge values are not there at all.
+ */
+public final class MappedBloomFilter implements ReadableBloomFilter {
+
+    private final BloomFilter bloomFilter;
+
+    MappedBloomFilter(MappedBitArray bitArray, HashStrategy hashStrategy) {
+        this.bloomFilter = new BloomFilter(bitArray, hashStrategy);
+    }
+
+    public static MappedBloomFilter open(Path path) throws SerializationException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Serializations.Header header = Serializations.readHeader(Channels.newInputStream(channel));
+
+            long size = (long) header.getNumberOfWords() * Long.BYTES;
+            if (channel.size() < header.getLength() + size) {
+                throw new SerializationException("File is truncated: " + path);
+            }
+
+            int segmentBytes = MappedBitArray.SEGMENT_BYTES;
+            MappedByteBuffer[] buffers = new MappedByteBuffer[(int) ((size + segmentBytes - 1) / segmentBytes)];
+            for (int i = 0; i < buffers.length; i++) {
+                long position = (long) i * segmentBytes;
+                buffers[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        header.getLength() + position, Math.min(segmentBytes, size - position));
+            }
+
+            return new MappedBloomFilter(new MappedBitArray(buffers, header.getBitSize()), header.getHashStrategy());
+
+        } catch (IOException e) {
+            throw new SerializationException(e);
+        }
+    }
+
+    //--------------------------------- f ---------------------------------
+
+    @Override
+    public boolean check(String value) {
+        return bloomFilter.check(value);
+    }
+
+    @Override
+    public boolean check(long value) {
+        return bloomFilter.check(value);
+    }
+
+    @Override
+    public boolean check(byte[] value) {
+        return bloomFilter.check(value);
+    }
+
+    @Override
+    public boolean check(ByteBuffer buf, int off, int len) {
+        return bloomFilter.check(buf, off, len);
+    }
+
+    @Override
+    public void checkAll(String[] values, boolean[] results) {
+        bloomFilter.checkAll(values, results);
+    }
+
+    @Override
+    public void checkAll(long[] values, boolean[] results) {
+        bloomFilter.checkAll(values, results);
+    }
+
+    @Override
+    public double fillRatio() {
+        return bloomFilter.fillRatio();
+    }
+
+    @Override
+    public long approximateElementCount() {
+        return bloomFilter.approximateElementCount();
+    }
+
+    @Override
+    public double expectedFpp() {
+        return bloomFilter.expectedFpp();
+    }
+
+    @Override
+    public Set<HashFunction> getHashFunctions() {
+        return bloomFilter.getHashFunctions();
+    }
+
+    @Override
+    public HashStrategy getHashStrategy() {
+        return bloomFilter.getHashStrategy();
+    }
+
+    @Override
+    public long size() {
+        return bloomFilter.size();
+    }
+}
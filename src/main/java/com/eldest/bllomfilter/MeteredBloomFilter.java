@@ -0,0 +1,204 @@
+package com.eldest.bllomfilter;
+
+import com.eldest.bllomfilter.hash.HashFunction;
+import com.eldest.bllomfilter.metrics.BloomFilterMetrics;
+import com.eldest.bllomfilter.metrics.BloomFilterStats;
+import com.google.common.collect.ImmutableSet;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * BloomFilter which reports adds, checks and hash time to {@link BloomFilterMetrics}. <br>
+ * Adds and checks are delegated to the wrapped filter, so a concurrent or mapped filter keeps its behaviour
+ * and counters, and the plain filter has no overhead at all where this decorator is not used.
+ * Hash time is measured for a sample of 1 of {@link #HASH_SAMPLE_RATE} checks, so {@link System#nanoTime()}
+ * is not on the hot path. A sampled check times the indexes the hash strategy computes for the value and
+ * tests the bits of those indexes, so the value is hashed once like in any other check.
+ *
+ * @see BloomFilterStats
+ */
+public class MeteredBloomFilter extends BloomFilter {
+
+    public static final int HASH_SAMPLE_RATE = 1024;
+
+    private final BloomFilter bloomFilter;
+    private final BloomFilterMetrics metrics;
+    /** Strategies timed one by one: one per function of a functions filter, the filter's own otherwise */
+    private final HashStrategy[] timedStrategies;
+    private final HashFunction[] timedFunctions;
+
+    public MeteredBloomFilter(BloomFilter bloomFilter, BloomFilterMetrics metrics) {
+        super(bloomFilter.getBitArray(), bloomFilter.getHashStrategy());
+        this.bloomFilter = bloomFilter;
+        this.metrics = metrics;
+
+        HashStrategy hashStrategy = bloomFilter.getHashStrategy();
+        this.timedFunctions = hashStrategy.getHashFunctions().toArray(new HashFunction[0]);
+        if (hashStrategy instanceof HashStrategies.FunctionsStrategy) {
+            this.timedStrategies = new HashStrategy[timedFunctions.length];
+            for (int i = 0; i < timedFunctions.length; i++) {
+                timedStrategies[i] = HashStrategies.functions(ImmutableSet.of(timedFunctions[i]));
+            }
+        } else {
+            this.timedStrategies = new HashStrategy[]{hashStrategy};
+        }
+        metrics.bind(this);
+    }
+
+    //--------------------------------- f ---------------------------------
+
+    @Override
+    public boolean addData(String value) {
+        boolean changed = bloomFilter.addData(value);
+        metrics.recordAdds(1, changed ? 1 : 0);
+        return changed;
+    }
+
+    @Override
+    public boolean addData(long value) {
+        boolean changed = bloomFilter.addData(value);
+        metrics.recordAdds(1, changed ? 1 : 0);
+        return changed;
+    }
+
+    @Override
+    public boolean addData(byte[] value) {
+        boolean changed = bloomFilter.addData(value);
+        metrics.recordAdds(1, changed ? 1 : 0);
+        return changed;
+    }
+
+    @Override
+    public boolean addData(ByteBuffer buf, int off, int len) {
+        boolean changed = bloomFilter.addData(buf, off, len);
+        metrics.recordAdds(1, changed ? 1 : 0);
+        return changed;
+    }
+
+    @Override
+    public int addAll(String[] values) {
+        int added = bloomFilter.addAll(values);
+        metrics.recordAdds(values.length, added);
+        return added;
+    }
+
+    @Override
+    public int addAll(long[] values) {
+        int added = bloomFilter.addAll(values);
+        metrics.recordAdds(values.length, added);
+        return added;
+    }
+
+    @Override
+    public boolean check(String value) {
+        boolean found = isSampled() ? checkTimed(value) : bloomFilter.check(value);
+        metrics.recordChecks(1, found ? 1 : 0);
+        return found;
+    }
+
+    @Override
+    public boolean check(long value) {
+        boolean found = isSampled() ? checkTimed(value) : bloomFilter.check(value);
+        metrics.recordChecks(1, found ? 1 : 0);
+        return found;
+    }
+
+    @Override
+    public boolean check(byte[] value) {
+        boolean found = isSampled() ? checkTimed(value) : bloomFilter.check(value);
+        metrics.recordChecks(1, found ? 1 : 0);
+        return found;
+    }
+
+    @Override
+    public boolean check(ByteBuffer buf, int off, int len) {
+        boolean found = isSampled() ? checkTimed(buf, off, len) : bloomFilter.check(buf, off, len);
+        metrics.recordChecks(1, found ? 1 : 0);
+        return found;
+    }
+
+    @Override
+    public void checkAll(String[] values, boolean[] results) {
+        bloomFilter.checkAll(values, results);
+        metrics.recordChecks(values.length, countFound(results, values.length));
+    }
+
+    @Override
+    public void checkAll(long[] values, boolean[] results) {
+        bloomFilter.checkAll(values, results);
+        metrics.recordChecks(values.length, countFound(results, values.length));
+    }
+
+    public BloomFilterMetrics getMetrics() {
+        return metrics;
+    }
+
+    //--------------------------------- support ---------------------------------
+
+    /**
+     * Computes the indexes the strategy sets for the value, timing every function, and checks their bits
+     */
+    private boolean checkTimed(String value) {
+        long[] indexes = new long[getHashStrategy().getNumberOfHashes()];
+        for (int i = 0, offset = 0; i < timedStrategies.length; offset += timedStrategies[i++].getNumberOfHashes()) {
+            long start = System.nanoTime();
+            timedStrategies[i].indexes(value, size(), indexes, offset);
+            metrics.recordHash(timedFunctions[i], System.nanoTime() - start);
+        }
+        return allSet(indexes);
+    }
+
+    private boolean checkTimed(long value) {
+        long[] indexes = new long[getHashStrategy().getNumberOfHashes()];
+        for (int i = 0, offset = 0; i < timedStrategies.length; offset += timedStrategies[i++].getNumberOfHashes()) {
+            long start = System.nanoTime();
+            timedStrategies[i].indexes(value, size(), indexes, offset);
+            metrics.recordHash(timedFunctions[i], System.nanoTime() - start);
+        }
+        return allSet(indexes);
+    }
+
+    private boolean checkTimed(byte[] value) {
+        long[] indexes = new long[getHashStrategy().getNumberOfHashes()];
+        for (int i = 0, offset = 0; i < timedStrategies.length; offset += timedStrategies[i++].getNumberOfHashes()) {
+            long start = System.nanoTime();
+            timedStrategies[i].indexes(value, 0, value.length, size(), indexes, offset);
+            metrics.recordHash(timedFunctions[i], System.nanoTime() - start);
+        }
+        return allSet(indexes);
+    }
+
+    private boolean checkTimed(ByteBuffer buf, int off, int len) {
+        long[] indexes = new long[getHashStrategy().getNumberOfHashes()];
+        for (int i = 0, offset = 0; i < timedStrategies.length; offset += timedStrategies[i++].getNumberOfHashes()) {
+            long start = System.nanoTime();
+            timedStrategies[i].indexes(buf, off, len, size(), indexes, offset);
+            metrics.recordHash(timedFunctions[i], System.nanoTime() - start);
+        }
+        return allSet(indexes);
+    }
+
+    private boolean allSet(long[] indexes) {
+        for (long index : indexes) {
+            if (!getBitArray().get(index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSampled() {
+        return (ThreadLocalRandom.current().nextInt() & (HASH_SAMPLE_RATE - 1)) == 0;
+    }
+
+    private static int countFound(boolean[] results, int length) {
+        int found = 0;
+        for (int i = 0; i < length; i++) {
+            if (results[i]) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,67 @@
+package com.eldest.bllomfilter;
+
+import com.eldest.bllomfilter.hash.HashFunction;
+
+import java.nio.ByteBuffer;
+import java.util.Set;
+
+/**
+ * Queries of a BloomFilter without the methods which change it. {@link BloomFilter} implements it,
+ * and a filter which can't be changed, like {@link MappedBloomFilter}, has only these methods.
+ */
+public interface ReadableBloomFilter {
+
+    /**
+     * Checks if element is probably exist
+     */
+    boolean check(String value);
+
+    /**
+     * Checks value added by {@link BloomFilter#addData(long)}
+     */
+    boolean check(long value);
+
+    /**
+     * Checks value added by {@link BloomFilter#addData(byte[])}
+     */
+    boolean check(byte[] value);
+
+    /**
+     * Checks value added by {@link BloomFilter#addData(ByteBuffer, int, int)}
+     */
+    boolean check(ByteBuffer buf, int off, int len);
+
+    /**
+     * Checks values in batches, {@code results[i]} is the result for {@code values[i]}
+     */
+    void checkAll(String[] values, boolean[] results);
+
+    /**
+     * Checks values added by {@link BloomFilter#addAll(long[])}, see {@link #checkAll(String[], boolean[])}
+     */
+    void checkAll(long[] values, boolean[] results);
+
+    /**
+     * Returns fraction of bits which are set
+     */
+    double fillRatio();
+
+    /**
+     * Returns estimated number of distinct added values
+     */
+    long approximateElementCount();
+
+    /**
+     * Returns probability that a value which was not added is found
+     */
+    double expectedFpp();
+
+    Set<HashFunction> getHashFunctions();
+
+    HashStrategy getHashStrategy();
+
+    /**
+     * Returns number of bits
+     */
+    long size();
+}
@@ -0,0 +1,203 @@
+package com.eldest.bllomfilter;
+
+import com.eldest.bllomfilter.hash.HashFunction;
+import com.google.common.base.MoreObjects;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.eldest.bllomfilter.hash.Hashes.Google.MURMUR3_128;
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * BloomFilter which grows to keep false positive rate when more values than expected are added. <br>
+ * Values are added to the newest slice, when it is full a new slice is created with
+ * {@code growthFactor} times bigger capacity and {@code tighteningRatio} times smaller false positive rate,
+ * so total false positive rate stays under {@code falsePositiveRate}. Slices are checked newest-first.
+ *
+ * @see <a href="http://gsd.di.uminho.pt/members/cbm/ps/dbloom.pdf">Scalable Bloom Filters</a>
+ */
+public class ScalableBloomFilter {
+
+    private final HashFunction hashFunction;
+    private final double growthFactor;
+    private final double tighteningRatio;
+
+    private final List<Slice> slices = new ArrayList<>();
+    private long count;
+
+    private ScalableBloomFilter(HashFunction hashFunction, int initialCapacity, double falsePositiveRate,
+                                double growthFactor, double tighteningRatio) {
+        this.hashFunction = hashFunction;
+        this.growthFactor = growthFactor;
+        this.tighteningRatio = tighteningRatio;
+
+        slices.add(createSlice(initialCapacity, falsePositiveRate * (1 - tighteningRatio)));
+    }
+
+    //--------------------------------- Builder ---------------------------------
+
+    /**
+     * <p>Uses to create new ScalableBloomFilter.</p>
+     * {@code initialCapacity} is the number of values of the first slice, 1000 by default. <br>
+     * {@code falsePositiveRate} is the bound of the whole filter, 0.01 by default. <br>
+     * {@code growthFactor} 2 and {@code tighteningRatio} 0.9 are recommended by the paper. <br>
+     * Slices use double hashing with {@link com.eldest.bllomfilter.hash.Hashes.Google#MURMUR3_128} by default.
+     */
+    public static class Builder {
+
+        private HashFunction hashFunction = MURMUR3_128;
+        private int initialCapacity = 1000;
+        private double falsePositiveRate = 0.01;
+        private double growthFactor = 2;
+        private double tighteningRatio = 0.9;
+
+        //--------------------------------- f ---------------------------------
+
+        public Builder setHashFunction(HashFunction hashFunction) {
+            this.hashFunction = hashFunction;
+            return this;
+        }
+
+        public Builder setInitialCapacity(int initialCapacity) {
+            this.initialCapacity = initialCapacity;
+            return this;
+        }
+
+        public Builder setFalsePositiveRate(double falsePositiveRate) {
+            this.falsePositiveRate = falsePositiveRate;
+            return this;
+        }
+
+        public Builder setGrowthFactor(double growthFactor) {
+            this.growthFactor = growthFactor;
+            return this;
+        }
+
+        public Builder setTighteningRatio(double tighteningRatio) {
+            this.tighteningRatio = tighteningRatio;
+            return this;
+        }
+
+        public ScalableBloomFilter build() {
+            checkArgument(initialCapacity > 0, "initialCapacity must be positive: %s", initialCapacity);
+            checkArgument(falsePositiveRate > 0 && falsePositiveRate < 1,
+                    "falsePositiveRate must be in (0, 1): %s", falsePositiveRate);
+            checkArgument(growthFactor >= 1, "growthFactor must be at least 1: %s", growthFactor);
+            checkArgument(tighteningRatio > 0 && tighteningRatio < 1,
+                    "tighteningRatio must be in (0, 1): %s", tighteningRatio);
+
+            return new ScalableBloomFilter(hashFunction, initialCapacity, falsePositiveRate, growthFactor, tighteningRatio);
+        }
+    }
+
+    //--------------------------------- f ---------------------------------
+
+    /**
+     * Adds value if it is not there yet, returns true if it was added
+     */
+    public boolean addData(String value) {
+        if (check(value)) {
+            return false;
+        }
+
+        Slice slice = slices.get(slices.size() - 1);
+        if (slice.count >= slice.capacity) {
+            slice = createSlice(
+                    (int) Math.min(Math.ceil(slice.capacity * growthFactor), Integer.MAX_VALUE),
+                    slice.falsePositiveRate * tighteningRatio);
+            slices.add(slice);
+        }
+
+        slice.bloomFilter.addData(value);
+        slice.count++;
+        count++;
+        return true;
+    }
+
+    public void addData(List<String> valueList) {
+        for (String value : valueList) {
+            addData(value);
+        }
+    }
+
+    /**
+     * Checks if element is probably exist
+     */
+    public boolean check(String value) {
+        for (int i = slices.size() - 1; i >= 0; i--) {
+            if (slices.get(i).bloomFilter.check(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns number of added values, values which were false positives are not counted
+     */
+    public long count() {
+        return count;
+    }
+
+    public int getNumberOfSlices() {
+        return slices.size();
+    }
+
+    /**
+     * Returns bits of all slices
+     */
+    public long size() {
+        long size = 0;
+        for (Slice slice : slices) {
+            size += slice.bloomFilter.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns false positive rate bound of the current slices
+     */
+    public double getFalsePositiveRate() {
+        double negativeRate = 1;
+        for (Slice slice : slices) {
+            negativeRate *= 1 - slice.falsePositiveRate;
+        }
+        return 1 - negativeRate;
+    }
+
+    //--------------------------------- support ---------------------------------
+
+    private Slice createSlice(int capacity, double falsePositiveRate) {
+        long numberOfBits = BloomFilter.getOptimalNumberOfBits(capacity, falsePositiveRate);
+
+        BloomFilter bloomFilter = new BloomFilter.Builder()
+                .setDoubleHashing(hashFunction)
+                .setNumberOfHashes(BloomFilter.getOptimalNumberOfFunctions(numberOfBits, capacity))
+                .setFilterSize(numberOfBits)
+                .build();
+        return new Slice(bloomFilter, capacity, falsePositiveRate);
+    }
+
+    private static class Slice {
+        private final BloomFilter bloomFilter;
+        private final int capacity;
+        private final double falsePositiveRate;
+        private int count;
+
+        Slice(BloomFilter bloomFilter, int capacity, double falsePositiveRate) {
+            this.bloomFilter = bloomFilter;
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("slices", slices.size())
+                .add("count", count)
+                .add("size", size())
+                .toString();
+    }
+}
@@ -0,0 +1,107 @@
+package com.eldest.bllomfilter.bits;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe {@link BitArray} packed into {@link AtomicLongArray}.
+ * Bits are set with CAS, so writers don't block each other and {@link #get(long)} is wait-free.
+ */
+public class AtomicBitArray implements BitArray {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+
+    private final AtomicLongArray data;
+    private final long bitSize;
+    private final LongAdder bitCount = new LongAdder();
+
+    public AtomicBitArray(long bitSize) {
+        if (bitSize <= 0) {
+            throw new IllegalArgumentException("bitSize must be positive: " + bitSize);
+        }
+        this.data = new AtomicLongArray(LongBitArray.numberOfWords(bitSize));
+        this.bitSize = bitSize;
+    }
+
+    //--------------------------------- f ---------------------------------
+
+    @Override
+    public boolean set(long index) {
+        int wordIndex = (int) (index >>> ADDRESS_BITS_PER_WORD);
+        long mask = 1L << index;
+
+        long word;
+        do {
+            word = data.get(wordIndex);
+            if ((word & mask) != 0) {
+                return false;
+            }
+        } while (!data.compareAndSet(wordIndex, word, word | mask));
+
+        bitCount.increment();
+        return true;
+    }
+
+    @Override
+    public boolean get(long index) {
+        return (data.get((int) (index >>> ADDRESS_BITS_PER_WORD)) & (1L << index)) != 0;
+    }
+
+    @Override
+    public long bitSize() {
+        return bitSize;
+    }
+
+    /**
+     * Bits set concurrently may be not counted yet
+     */
+    @Override
+    public long bitCount() {
+        return bitCount.sum();
+    }
+
+    @Override
+    public int numberOfWords() {
+        return data.length();
+    }
+
+    @Override
+    public long getWord(int wordIndex) {
+        return data.get(wordIndex);
+    }
+
+    /**
+     * Words are merged by CAS, so values added concurrently are not lost
+     */
+    @Override
+    public void or(BitArray other) {
+        LongBitArray.checkSameSize(this, other);
+        for (int i = 0; i < data.length(); i++) {
+            long otherWord = other.getWord(i);
+            long word;
+            do {
+                word = data.get(i);
+                if ((word | otherWord) == word) {
+                    break;
+                }
+            } while (!data.compareAndSet(i, word, word | otherWord));
+            bitCount.add(Long.bitCount(word | otherWord) - Long.bitCount(word));
+        }
+    }
+
+    @Override
+    public void and(BitArray other) {
+        LongBitArray.checkSameSize(this, other);
+        for (int i = 0; i < data.length(); i++) {
+            long otherWord = other.getWord(i);
+            long word;
+            do {
+                word = data.get(i);
+                if ((word & otherWord) == word) {
+                    break;
+                }
+            } while (!data.compareAndSet(i, word, word & otherWord));
+            bitCount.add(Long.bitCount(word & otherWord) - Long.bitCount(word));
+        }
+    }
+}
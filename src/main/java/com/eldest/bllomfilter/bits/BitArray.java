@@ -0,0 +1,45 @@
+package com.eldest.bllomfilter.bits;
+
+/**
+ * Fixed size array of bits used as BloomFilter storage.
+ * Indexes are long, so an array may have more than 2^31 bits.
+ */
+public interface BitArray {
+
+    /**
+     * Sets bit at the index, returns true if bit was changed
+     */
+    boolean set(long index);
+
+    boolean get(long index);
+
+    /**
+     * Returns number of bits in array
+     */
+    long bitSize();
+
+    /**
+     * Returns number of set bits. It is kept up to date on every change, so the call is cheap
+     */
+    long bitCount();
+
+    /**
+     * Returns number of 64-bit words, the last word may be used partly
+     */
+    int numberOfWords();
+
+    /**
+     * Returns 64 bits starting from {@code wordIndex * 64}, lowest bit is the first one
+     */
+    long getWord(int wordIndex);
+
+    /**
+     * Sets all bits which are set in the other array, word by word. Arrays must have the same size.
+     */
+    void or(BitArray other);
+
+    /**
+     * Clears all bits which are not set in the other array, word by word. Arrays must have the same size.
+     */
+    void and(BitArray other);
+}
@@ -0,0 +1,68 @@
+package com.eldest.bllomfilter.bits;
+
+/**
+ * Array of 4-bit counters packed into {@code long[]}, 16 counters per word. <br>
+ * Counters saturate at {@link #MAX_VALUE} and are never decremented after that,
+ * since the real number of values behind them is unknown.
+ */
+public class CounterArray {
+
+    public static final int MAX_VALUE = 15;
+
+    private static final int ADDRESS_BITS_PER_WORD = 4;
+    private static final int COUNTER_MASK = 0xf;
+
+    private final long[] data;
+    private final long size;
+
+    public CounterArray(long size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+        long numberOfWords = (size + COUNTER_MASK) >>> ADDRESS_BITS_PER_WORD;
+        if (numberOfWords > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("size is too big: " + size);
+        }
+        this.data = new long[(int) numberOfWords];
+        this.size = size;
+    }
+
+    //--------------------------------- f ---------------------------------
+
+    public int get(long index) {
+        return (int) (data[(int) (index >>> ADDRESS_BITS_PER_WORD)] >>> shift(index)) & COUNTER_MASK;
+    }
+
+    /**
+     * Increments counter unless it is saturated, returns value before increment
+     */
+    public int increment(long index) {
+        int value = get(index);
+        if (value < MAX_VALUE) {
+            data[(int) (index >>> ADDRESS_BITS_PER_WORD)] += 1L << shift(index);
+        }
+        return value;
+    }
+
+    /**
+     * Decrements counter unless it is zero or saturated, returns value before decrement
+     */
+    public int decrement(long index) {
+        int value = get(index);
+        if (value > 0 && value < MAX_VALUE) {
+            data[(int) (index >>> ADDRESS_BITS_PER_WORD)] -= 1L << shift(index);
+        }
+        return value;
+    }
+
+    /**
+     * Returns number of counters
+     */
+    public long size() {
+        return size;
+    }
+
+    private static int shift(long index) {
+        return (int) (index & COUNTER_MASK) << 2;
+    }
+}
@@ -0,0 +1,217 @@
+package com.eldest.bllomfilter.bits;
+
+/**
+ * {@link BitArray} packed into {@code long[]} segments, 64 bits per word. <br>
+ * Big arrays are split into segments of {@link #WORDS_PER_SEGMENT} words, so more than 2^31 bits
+ * don't need one huge contiguous allocation. Up to 2^31 - 1 words (2^37 bits) are supported.
+ */
+public class LongBitArray implements BitArray {
+
+    /** Number of words in one segment of a new array, 128 MiB */
+    public static final int WORDS_PER_SEGMENT = 1 << 24;
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+    private static final int SEGMENT_ADDRESS_BITS = 24;
+
+    private final long[][] segments;
+    private final int segmentAddressBits;
+    private final int segmentMask;
+    private final int numberOfWords;
+    private final long bitSize;
+    private long bitCount;
+
+    public LongBitArray(long bitSize) {
+        if (bitSize <= 0) {
+            throw new IllegalArgumentException("bitSize must be positive: " + bitSize);
+        }
+        this.numberOfWords = numberOfWords(bitSize);
+        this.segments = new long[(int) (((long) numberOfWords + WORDS_PER_SEGMENT - 1) >>> SEGMENT_ADDRESS_BITS)][];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new long[Math.min(WORDS_PER_SEGMENT, numberOfWords - i * WORDS_PER_SEGMENT)];
+        }
+        this.segmentAddressBits = SEGMENT_ADDRESS_BITS;
+        this.segmentMask = WORDS_PER_SEGMENT - 1;
+        this.bitSize = bitSize;
+    }
+
+    /**
+     * Wraps words without copying, see {@link #getWord(int)}
+     */
+    public LongBitArray(long[] data, long bitSize) {
+        if (bitSize <= 0 || data.length != numberOfWords(bitSize)) {
+            throw new IllegalArgumentException(
+                    String.format("%d words can't hold %d bits", data.length, bitSize));
+        }
+        this.segments = new long[][]{data};
+        this.segmentAddressBits = Integer.SIZE - 1;
+        this.segmentMask = Integer.MAX_VALUE;
+        this.numberOfWords = data.length;
+        this.bitSize = bitSize;
+        for (long word : data) {
+            bitCount += Long.bitCount(word);
+        }
+    }
+
+    /**
+     * Wraps segments without copying, every segment but the last one has {@link #WORDS_PER_SEGMENT} words
+     */
+    public LongBitArray(long[][] segments, long bitSize) {
+        if (bitSize <= 0) {
+            throw new IllegalArgumentException("bitSize must be positive: " + bitSize);
+        }
+        this.numberOfWords = numberOfWords(bitSize);
+        if (segments.length != (int) (((long) numberOfWords + WORDS_PER_SEGMENT - 1) >>> SEGMENT_ADDRESS_BITS)) {
+            throw new IllegalArgumentException(
+                    String.format("%d segments can't hold %d bits", segments.length, bitSize));
+        }
+        for (int i = 0; i < segments.length; i++) {
+            if (segments[i].length != Math.min(WORDS_PER_SEGMENT, numberOfWords - i * WORDS_PER_SEGMENT)) {
+                throw new IllegalArgumentException(
+                        String.format("Segment %d has %d words", i, segments[i].length));
+            }
+            for (long word : segments[i]) {
+                bitCount += Long.bitCount(word);
+            }
+        }
+        this.segments = segments;
+        this.segmentAddressBits = SEGMENT_ADDRESS_BITS;
+        this.segmentMask = WORDS_PER_SEGMENT - 1;
+        this.bitSize = bitSize;
+    }
+
+    //--------------------------------- f ---------------------------------
+
+    @Override
+    public boolean set(long index) {
+        int wordIndex = (int) (index >>> ADDRESS_BITS_PER_WORD);
+        long[] segment = segments[wordIndex >>> segmentAddressBits];
+        int i = wordIndex & segmentMask;
+        long mask = 1L << index;
+        long word = segment[i];
+        if ((word & mask) != 0) {
+            return false;
+        }
+        segment[i] = word | mask;
+        bitCount++;
+        return true;
+    }
+
+    @Override
+    public boolean get(long index) {
+        return (getWord((int) (index >>> ADDRESS_BITS_PER_WORD)) & (1L << index)) != 0;
+    }
+
+    @Override
+    public long bitSize() {
+        return bitSize;
+    }
+
+    @Override
+    public long bitCount() {
+        return bitCount;
+    }
+
+    @Override
+    public int numberOfWords() {
+        return numberOfWords;
+    }
+
+    @Override
+    public long getWord(int wordIndex) {
+        return segments[wordIndex >>> segmentAddressBits][wordIndex & segmentMask];
+    }
+
+    /**
+     * Replaces 64 bits starting from {@code wordIndex * 64}, used to restore a filter
+     */
+    public void setWord(int wordIndex, long word) {
+        long[] segment = segments[wordIndex >>> segmentAddressBits];
+        int i = wordIndex & segmentMask;
+        bitCount += Long.bitCount(word) - Long.bitCount(segment[i]);
+        segment[i] = word;
+    }
+
+    /**
+     * Arrays of the same layout are merged segment by segment in plain loops, which the JIT optimizes well
+     */
+    @Override
+    public void or(BitArray other) {
+        checkSameSize(this, other);
+        if (isSameLayout(other)) {
+            long[][] otherSegments = ((LongBitArray) other).segments;
+            long count = 0;
+            for (int s = 0; s < segments.length; s++) {
+                long[] segment = segments[s];
+                long[] otherSegment = otherSegments[s];
+                for (int i = 0; i < segment.length; i++) {
+                    long word = segment[i] | otherSegment[i];
+                    segment[i] = word;
+                    count += Long.bitCount(word);
+                }
+            }
+            bitCount = count;
+        } else {
+            for (int i = 0; i < numberOfWords; i++) {
+                setWord(i, getWord(i) | other.getWord(i));
+            }
+        }
+    }
+
+    @Override
+    public void and(BitArray other) {
+        checkSameSize(this, other);
+        if (isSameLayout(other)) {
+            long[][] otherSegments = ((LongBitArray) other).segments;
+            long count = 0;
+            for (int s = 0; s < segments.length; s++) {
+                long[] segment = segments[s];
+                long[] otherSegment = otherSegments[s];
+                for (int i = 0; i < segment.length; i++) {
+                    long word = segment[i] & otherSegment[i];
+                    segment[i] = word;
+                    count += Long.bitCount(word);
+                }
+            }
+            bitCount = count;
+        } else {
+            for (int i = 0; i < numberOfWords; i++) {
+                setWord(i, getWord(i) & other.getWord(i));
+            }
+        }
+    }
+
+    private boolean isSameLayout(BitArray other) {
+        return other instanceof LongBitArray && ((LongBitArray) other).segmentAddressBits == segmentAddressBits;
+    }
+
+    //--------------------------------- static ---------------------------------
+
+    /**
+     * Returns copy of bits of any {@link BitArray}
+     */
+    public static LongBitArray copyOf(BitArray bitArray) {
+        LongBitArray copy = new LongBitArray(bitArray.bitSize());
+        for (int i = 0; i < copy.numberOfWords; i++) {
+            copy.setWord(i, bitArray.getWord(i));
+        }
+        return copy;
+    }
+
+    static void checkSameSize(BitArray bitArray, BitArray other) {
+        if (bitArray.bitSize() != other.bitSize()) {
+            throw new IllegalArgumentException(
+                    String.format("Bit arrays have different sizes: %d and %d", bitArray.bitSize(), other.bitSize()));
+        }
+    }
+
+    /**
+     * Returns number of words which hold the bits, throws if it doesn't fit one int
+     */
+    public static int numberOfWords(long bitSize) {
+        long numberOfWords = (bitSize + Long.SIZE - 1) >>> ADDRESS_BITS_PER_WORD;
+        if (numberOfWords > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("bitSize is too big: " + bitSize);
+        }
+        return (int) numberOfWords;
+    }
+}
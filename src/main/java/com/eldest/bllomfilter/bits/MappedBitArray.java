@@ -0,0 +1,116 @@
+package com.eldest.bllomfilter.bits;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Read-only {@link BitArray} over little-endian words of buffers, e.g. a file mapped to memory.
+ * Bits are never copied to the heap. One buffer is limited to 2 GiB, so bigger files are mapped
+ * as several buffers of {@link #SEGMENT_BYTES}.
+ */
+public class MappedBitArray implements BitArray {
+
+    /** Size of every buffer but the last one, 1 GiB */
+    public static final int SEGMENT_BYTES = 1 << 30;
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+    private static final int SEGMENT_ADDRESS_BITS = 27;
+
+    private final ByteBuffer[] buffers;
+    private final int segmentAddressBits;
+    private final int segmentMask;
+    private final long bitSize;
+    private volatile long bitCount = -1;
+
+    /**
+     * @param buffer words start at position 0 of the buffer
+     */
+    public MappedBitArray(ByteBuffer buffer, long bitSize) {
+        this(new ByteBuffer[]{buffer}, Integer.SIZE - 3, bitSize);
+    }
+
+    /**
+     * @param buffers words start at position 0 of the first buffer,
+     *                every buffer but the last one has {@link #SEGMENT_BYTES}
+     */
+    public MappedBitArray(ByteBuffer[] buffers, long bitSize) {
+        this(buffers, SEGMENT_ADDRESS_BITS, bitSize);
+        for (int i = 0; i < buffers.length - 1; i++) {
+            if (buffers[i].capacity() != SEGMENT_BYTES) {
+                throw new IllegalArgumentException("Buffer " + i + " is not a full segment: " + buffers[i].capacity());
+            }
+        }
+    }
+
+    private MappedBitArray(ByteBuffer[] buffers, int segmentAddressBits, long bitSize) {
+        long capacity = 0;
+        for (ByteBuffer buffer : buffers) {
+            capacity += buffer.capacity();
+        }
+        if (capacity < (long) LongBitArray.numberOfWords(bitSize) * Long.BYTES) {
+            throw new IllegalArgumentException(
+                    String.format("%d bytes can't hold %d bits", capacity, bitSize));
+        }
+
+        this.buffers = new ByteBuffer[buffers.length];
+        for (int i = 0; i < buffers.length; i++) {
+            this.buffers[i] = buffers[i].duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        }
+        this.segmentAddressBits = segmentAddressBits;
+        this.segmentMask = (1 << segmentAddressBits) - 1;
+        this.bitSize = bitSize;
+    }
+
+    //--------------------------------- f ---------------------------------
+
+    @Override
+    public boolean set(long index) {
+        throw new UnsupportedOperationException("MappedBitArray is read-only");
+    }
+
+    @Override
+    public void or(BitArray other) {
+        throw new UnsupportedOperationException("MappedBitArray is read-only");
+    }
+
+    @Override
+    public void and(BitArray other) {
+        throw new UnsupportedOperationException("MappedBitArray is read-only");
+    }
+
+    @Override
+    public boolean get(long index) {
+        return (getWord((int) (index >>> ADDRESS_BITS_PER_WORD)) & (1L << index)) != 0;
+    }
+
+    @Override
+    public long bitSize() {
+        return bitSize;
+    }
+
+    /**
+     * Bits are counted once on the first call, the array is read-only
+     */
+    @Override
+    public long bitCount() {
+        long count = bitCount;
+        if (count < 0) {
+            count = 0;
+            for (int i = 0; i < numberOfWords(); i++) {
+                count += Long.bitCount(getWord(i));
+            }
+            bitCount = count;
+        }
+        return count;
+    }
+
+    @Override
+    public int numberOfWords() {
+        return LongBitArray.numberOfWords(bitSize);
+    }
+
+    @Override
+    public long getWord(int wordIndex) {
+        return buffers[wordIndex >>> segmentAddressBits].getLong((wordIndex & segmentMask) << 3);
+    }
+}
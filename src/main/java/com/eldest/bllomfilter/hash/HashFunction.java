@@ -1,10 +1,161 @@
 package com.eldest.bllomfilter.hash;
 
+import com.eldest.bllomfilter.hash.implementation.MurmurHash;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 public interface HashFunction {
 
     String getName();
 
     int hash(String value);
 
+    /**
+     * Returns index of the value in a filter of the given size, see {@link #reduce(int, int)}
+     */
     int index(String value, int size);
+
+    /**
+     * Returns number of bits the function really computes, at most 64. By default 32,
+     * so {@link #hash64(String)} has at most 2^32 distinct values.
+     */
+    default int bits() {
+        return Integer.SIZE;
+    }
+
+    /**
+     * Same as {@link #hash(String)}, bundled MURMUR and FNV functions hash it without allocation.
+     */
+    default int hash(CharSequence value) {
+        return hash(value.toString());
+    }
+
+    /**
+     * Hashes bytes as is. Gives the same value as {@link #hash(String)}
+     * if bytes are the value encoded with the charset of the function.
+     * By default bytes are decoded as UTF-8.
+     */
+    default int hash(byte[] buf, int off, int len) {
+        return hash(new String(buf, off, len, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Same as {@link #hash(byte[], int, int)} for bytes of the buffer, position of the buffer is ignored.
+     * Bundled MURMUR and FNV functions read the buffer in place, others copy the bytes.
+     */
+    default int hash(ByteBuffer buf, int off, int len) {
+        return hash(copyOf(buf, off, len), 0, len);
+    }
+
+    /**
+     * Same as {@link #hash(byte[], int, int)} for the whole array
+     */
+    default int hashBytes(byte[] value) {
+        return hash(value, 0, value.length);
+    }
+
+    /**
+     * Hashes 8 little-endian bytes of the value, bundled MURMUR, FNV and Google functions do it without allocation
+     */
+    default int hashLong(long value) {
+        byte[] bytes = new byte[Long.BYTES];
+        for (int i = 0; i < Long.BYTES; i++) {
+            bytes[i] = (byte) (value >>> (i << 3));
+        }
+        return hash(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Returns 64-bit hash of the value, used by double hashing.
+     * By default 32-bit {@link #hash(String)} is spread by the murmur3 finalizer.
+     */
+    default long hash64(String value) {
+        return MurmurHash.fmix64(hash(value));
+    }
+
+    /**
+     * Same as {@link #hash64(String)} for the value given as bytes
+     */
+    default long hash64(byte[] buf, int off, int len) {
+        return MurmurHash.fmix64(hash(buf, off, len));
+    }
+
+    /**
+     * Same as {@link #hash64(byte[], int, int)} for bytes of the buffer
+     */
+    default long hash64(ByteBuffer buf, int off, int len) {
+        return hash64(copyOf(buf, off, len), 0, len);
+    }
+
+    /**
+     * Same as {@link #hash64(String)} for the value given as 8 little-endian bytes
+     */
+    default long hash64(long value) {
+        return MurmurHash.fmix64(hashLong(value));
+    }
+
+    /**
+     * Same as {@link #index(String, int)} for the value given as 8 little-endian bytes
+     */
+    default int index(long value, int size) {
+        return reduce(hashLong(value), size);
+    }
+
+    /**
+     * Same as {@link #index(String, int)} for the value given as bytes
+     */
+    default int index(byte[] buf, int off, int len, int size) {
+        return reduce(hash(buf, off, len), size);
+    }
+
+    /**
+     * Same as {@link #index(String, int)} for bytes of the buffer
+     */
+    default int index(ByteBuffer buf, int off, int len, int size) {
+        return reduce(hash(buf, off, len), size);
+    }
+
+    /**
+     * Copies bytes of the buffer without changing its position
+     */
+    static byte[] copyOf(ByteBuffer buf, int off, int len) {
+        ByteBuffer duplicate = buf.duplicate();
+        duplicate.position(off);
+        byte[] bytes = new byte[len];
+        duplicate.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Maps hash to [0, size) by Lemire's multiply-shift {@code (hash * size) >>> 32}.
+     * It is a multiplication instead of a division, all 32 bits of the hash are used and there is no
+     * sign problem of {@code Math.abs(hash % size)}.
+     *
+     * @see <a href="https://lemire.me/blog/2016/06/27/a-fast-alternative-to-the-modulo-reduction/">
+     * A fast alternative to the modulo reduction</a>
+     */
+    static int reduce(int hash, int size) {
+        return (int) (((hash & 0xffffffffL) * size) >>> 32);
+    }
+
+    /**
+     * Same as {@link #reduce(int, int)} for 64-bit hash, so size may be bigger than 2^31.
+     * Top 32 bits of the hash are used while size fits 32 bits, otherwise the result is
+     * the high half of the unsigned 128-bit product {@code hash64 * size}.
+     */
+    static long reduce(long hash64, long size) {
+        if (size <= 0xffffffffL) {
+            return ((hash64 >>> 32) * size) >>> 32;
+        }
+        long hashLow = hash64 & 0xffffffffL;
+        long hashHigh = hash64 >>> 32;
+        long sizeLow = size & 0xffffffffL;
+        long sizeHigh = size >>> 32;
+
+        long low = hashLow * sizeLow;
+        long middle1 = hashHigh * sizeLow + (low >>> 32);
+        long middle2 = hashLow * sizeHigh + (middle1 & 0xffffffffL);
+        return hashHigh * sizeHigh + (middle1 >>> 32) + (middle2 >>> 32);
+    }
 }
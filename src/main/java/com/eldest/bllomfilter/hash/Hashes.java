@@ -2,15 +2,18 @@ package com.eldest.bllomfilter.hash;
 
 import com.eldest.bllomfilter.hash.implementation.*;
 import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.Hashing;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Objects;
-import java.util.function.Function;
-import java.util.function.Supplier;
 
 /** Contains List of Hash Functions to use in BloomFilter.
  * @see <a href="https://code.google.com/p/guava-libraries/wiki/HashingExplained">guava HashingExplained</a>
@@ -21,57 +24,279 @@ public class Hashes {
     private static final Charset ENCODING = Charset.forName("cp1251");
 
 
-    public static final HashFunction MURMUR = new HashFunctionImpl("MURMUR", Hashes::murmur);
+    /**
+     * MurmurHash 2 of UTF-8 bytes on any platform. Versions before 2 of the binary format hashed
+     * {@code value.getBytes()} in the platform charset, so filters of non-ASCII strings built on a platform
+     * which is not UTF-8 must be rebuilt.
+     */
+    public static final HashFunction MURMUR = new MurmurFunction("MURMUR");
 
-    public static final HashFunction FNV1A32 = new HashFunctionImpl("FNV1a32", value -> fnv(value, FNV1a32::new));
-    public static final HashFunction FNV1A64 = new HashFunctionImpl("FNV1a64", value -> fnv(value, FNV1a64::new));
-    public static final HashFunction FNV_132 = new HashFunctionImpl("FNV132", value -> fnv(value, FNV132::new));
-    public static final HashFunction FNV_164 = new HashFunctionImpl("FNV164", value -> fnv(value, FNV164::new));
+    public static final HashFunction FNV1A32 = new FnvFunction("FNV1a32", new FNV1a32());
+    public static final HashFunction FNV1A64 = new FnvFunction("FNV1a64", new FNV1a64());
+    public static final HashFunction FNV_132 = new FnvFunction("FNV132", new FNV132());
+    public static final HashFunction FNV_164 = new FnvFunction("FNV164", new FNV164());
 
-    public static final HashFunction MD5 = new HashFunctionImpl("MD5", value -> secured(value, "MD5"));
-    public static final HashFunction SHA_1 = new HashFunctionImpl("SHA-1", value -> secured(value, "SHA-1"));
-    public static final HashFunction SHA_256 = new HashFunctionImpl("SHA-256", value -> secured(value, "SHA-256"));
+    public static final HashFunction XXH64 = new Hash64Function("XXH64", new XxHash64());
+    public static final HashFunction WYHASH = new Hash64Function("WYHASH", new WyHash());
+
+    public static final HashFunction MD5 = new SecuredFunction("MD5", "MD5", false);
+    public static final HashFunction SHA_1 = new SecuredFunction("SHA-1", "SHA-1", false);
+    public static final HashFunction SHA_256 = new SecuredFunction("SHA-256", "SHA-256", false);
 
     private Hashes() { /* closed */ }
 
+    /**
+     * Returns bundled function by its {@link HashFunction#getName()}
+     */
+    public static HashFunction forName(String name) throws HashException {
+        HashFunction hashFunction = Registry.BY_NAME.get(name);
+        if (hashFunction == null) {
+            throw new HashException("Unknown hash function: " + name);
+        }
+        return hashFunction;
+    }
+
+    /** Initialized lazily, so all the constants are already created. */
+    private static class Registry {
+        private static final ImmutableMap<String, HashFunction> BY_NAME = Maps.uniqueIndex(ImmutableList.of(
+                MURMUR, FNV1A32, FNV1A64, FNV_132, FNV_164, XXH64, WYHASH, MD5, SHA_1, SHA_256,
+                Google.MURMUR3_32, Google.MURMUR3_128, Google.SIPHASH24, Google.ADLER32, Google.CRC32,
+                Google.MD5, Google.SHA256, Google.SHA512, Google.SIP_HASH_24), HashFunction::getName);
+    }
+
     //--------------------------------- murmur ---------------------------------
 
     private static final int SEED = 1;
 
-    private static int murmur(String value) {
-        return MurmurHash.hash(value.getBytes(), SEED);
+    /** Hashes UTF-8 bytes of the value. */
+    static class MurmurFunction extends HashFunctionImpl {
+
+        MurmurFunction(String name) {
+            super(name);
+        }
+
+        @Override
+        public int hash(CharSequence value) {
+            return MurmurHash.hash(value, SEED);
+        }
+
+        @Override
+        public int hash(byte[] buf, int off, int len) {
+            return MurmurHash.hash(buf, off, len, SEED);
+        }
+
+        @Override
+        public int hashLong(long value) {
+            return MurmurHash.hashLong(value, SEED);
+        }
+
+        @Override
+        public int hash(ByteBuffer buf, int off, int len) {
+            return MurmurHash.hash(buf, off, len, SEED);
+        }
+
+        @Override
+        public long hash64(ByteBuffer buf, int off, int len) {
+            return MurmurHash.fmix64(hash(buf, off, len));
+        }
     }
 
     //--------------------------------- fnv ---------------------------------
 
-    private static int fnv(String value, Supplier<FNV1> supplier) {
-        FNV1 fnv = supplier.get();
-        fnv.init(value);
-        return (int) fnv.getHash();
+    /** Hashes UTF-8 bytes of the value, {@link FNV1} instance is only used for stateless calls. */
+    static class FnvFunction extends HashFunctionImpl {
+        private final FNV1 fnv;
+
+        FnvFunction(String name, FNV1 fnv) {
+            super(name);
+            this.fnv = fnv;
+        }
+
+        @Override
+        public int hash(CharSequence value) {
+            return (int) fnv.hash(value);
+        }
+
+        @Override
+        public int hash(byte[] buf, int off, int len) {
+            return (int) fnv.hash(buf, off, len);
+        }
+
+        @Override
+        public int hashLong(long value) {
+            return (int) fnv.hash(value);
+        }
+
+        @Override
+        public int hash(ByteBuffer buf, int off, int len) {
+            return (int) fnv.hash(buf, off, len);
+        }
+
+        @Override
+        public long hash64(ByteBuffer buf, int off, int len) {
+            return MurmurHash.fmix64(hash(buf, off, len));
+        }
+    }
+
+    //--------------------------------- 64-bit ---------------------------------
+
+    /** Function with native 64-bit result, 32-bit hash is its lower half. Hashes UTF-8 bytes of the value. */
+    static class Hash64Function extends HashFunctionImpl {
+        private final Hash64 hash64;
+
+        Hash64Function(String name, Hash64 hash64) {
+            super(name);
+            this.hash64 = hash64;
+        }
+
+        @Override
+        public int bits() {
+            return Long.SIZE;
+        }
+
+        @Override
+        public int hash(CharSequence value) {
+            return (int) hash64.hash(value, SEED);
+        }
+
+        @Override
+        public int hash(byte[] buf, int off, int len) {
+            return (int) hash64.hash(buf, off, len, SEED);
+        }
+
+        @Override
+        public int hash(ByteBuffer buf, int off, int len) {
+            return (int) hash64.hash(buf, off, len, SEED);
+        }
+
+        @Override
+        public int hashLong(long value) {
+            return (int) hash64.hashLong(value, SEED);
+        }
+
+        @Override
+        public long hash64(String value) {
+            return hash64.hash(value, SEED);
+        }
+
+        @Override
+        public long hash64(byte[] buf, int off, int len) {
+            return hash64.hash(buf, off, len, SEED);
+        }
+
+        @Override
+        public long hash64(ByteBuffer buf, int off, int len) {
+            return hash64.hash(buf, off, len, SEED);
+        }
+
+        @Override
+        public long hash64(long value) {
+            return hash64.hashLong(value, SEED);
+        }
     }
 
     //--------------------------------- secured ---------------------------------
 
-    private static int secured(String value, String algorithm) {
-        try {
+    /**
+     * Hashes cp1251 bytes of the value with a {@link MessageDigest}. Every thread reuses its own digest instance,
+     * so there is no provider lookup and no allocation per value except the encoded string.
+     * If {@code native64} is set, {@link #hash64(String)} is the first 8 bytes of the digest, so double hashing
+     * gets any number of indexes out of one digest computation. Otherwise it is the 32-bit hash spread by
+     * the murmur3 finalizer, as {@link #MD5}, {@link #SHA_1} and {@link #SHA_256} always had it,
+     * so filters written with them keep their bits.
+     */
+    static class SecuredFunction extends HashFunctionImpl {
+        private final ThreadLocal<DigestState> digestStates;
+        private final boolean native64;
+
+        SecuredFunction(String name, String algorithm, boolean native64) {
+            super(name);
+            this.digestStates = ThreadLocal.withInitial(() -> new DigestState(algorithm));
+            this.native64 = native64;
+        }
+
+        @Override
+        public int bits() {
+            return native64 ? Long.SIZE : Integer.SIZE;
+        }
+
+        @Override
+        public int hash(CharSequence value) {
+            byte[] bytes = value.toString().getBytes(ENCODING);
+            return hash(bytes, 0, bytes.length);
+        }
+
+        @Override
+        public int hash(byte[] buf, int off, int len) {
+            return (int) digest(buf, off, len);
+        }
+
+        @Override
+        public long hash64(String value) {
             byte[] bytes = value.getBytes(ENCODING);
-            MessageDigest messageDigest = MessageDigest.getInstance(algorithm);
-            byte[] digest = messageDigest.digest(bytes);
-            return HashCode.fromBytes(digest).hashCode();
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
+            return hash64(bytes, 0, bytes.length);
+        }
+
+        @Override
+        public long hash64(byte[] buf, int off, int len) {
+            long digest = digest(buf, off, len);
+            return native64 ? digest : MurmurHash.fmix64((int) digest);
+        }
+
+        @Override
+        public long hash64(long value) {
+            byte[] bytes = new byte[Long.BYTES];
+            for (int i = 0; i < Long.BYTES; i++) {
+                bytes[i] = (byte) (value >>> (i << 3));
+            }
+            return hash64(bytes, 0, bytes.length);
+        }
+
+        /**
+         * Returns first 8 bytes of the digest as little-endian long, like {@link HashCode#asLong()}
+         */
+        private long digest(byte[] buf, int off, int len) {
+            DigestState state = digestStates.get();
+            try {
+                state.messageDigest.update(buf, off, len);
+                state.messageDigest.digest(state.digest, 0, state.digest.length);
+            } catch (DigestException e) {
+                throw new HashException(e);
+            }
+
+            long hash = 0;
+            for (int i = Long.BYTES - 1; i >= 0; i--) {
+                hash = (hash << 8) | (state.digest[i] & 0xff);
+            }
+            return hash;
+        }
+
+        private static class DigestState {
+            private final MessageDigest messageDigest;
+            private final byte[] digest;
+
+            DigestState(String algorithm) {
+                try {
+                    this.messageDigest = MessageDigest.getInstance(algorithm);
+                } catch (NoSuchAlgorithmException e) {
+                    throw new HashException(e);
+                }
+                this.digest = new byte[messageDigest.getDigestLength()];
+            }
         }
     }
 
     //--------------------------------- HashFunction ---------------------------------
 
-    public static class HashFunctionImpl implements HashFunction {
-        private String name;
-        private Function<String, Integer> function;
+    /**
+     * Base class of bundled functions, {@link #hash(String)} goes to {@link #hash(CharSequence)}.
+     * Functions are equal if they have the same class and name.
+     */
+    public abstract static class HashFunctionImpl implements HashFunction {
+        private final String name;
 
-        HashFunctionImpl(String name, Function<String, Integer> function) {
+        HashFunctionImpl(String name) {
             this.name = name;
-            this.function = function;
         }
 
         @Override
@@ -81,17 +306,23 @@ public class Hashes {
 
         @Override
         public int hash(String value) {
-            return function.apply(value);
+            return hash((CharSequence) value);
         }
 
+        @Override
+        public abstract int hash(CharSequence value);
+
+        @Override
+        public abstract int hash(byte[] buf, int off, int len);
+
         @Override
         public int index(String value, int size) {
-            return Math.abs(hash(value) % size);
+            return HashFunction.reduce(hash(value), size);
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(function);
+            return Objects.hash(getClass(), name);
         }
 
         @Override
@@ -103,14 +334,13 @@ public class Hashes {
                 return false;
             }
             final HashFunctionImpl other = (HashFunctionImpl) obj;
-            return Objects.equals(this.function, other.function);
+            return Objects.equals(this.name, other.name);
         }
 
         @Override
         public String toString() {
             return MoreObjects.toStringHelper(this)
                     .add("name", name)
-//                    .add("function", function)
                     .toString();
         }
     }
@@ -119,52 +349,108 @@ public class Hashes {
 
     public static class Google {
 
-        public static final HashFunction MURMUR3_32 = new HashFunctionImpl(
+        public static final HashFunction MURMUR3_32 = new GoogleFunction(
                 "Google.MURMUR3_32",
-                value -> getHashCode(Hashing.murmur3_32(), value));
+                Hashing.murmur3_32());
 
-        public static final HashFunction MURMUR3_128 = new HashFunctionImpl(
+        public static final HashFunction MURMUR3_128 = new GoogleFunction(
                 "Google.MURMUR3_128",
-                value -> getHashCode(Hashing.murmur3_128(), value));
+                Hashing.murmur3_128());
 
-        public static final HashFunction SIPHASH24 = new HashFunctionImpl(
+        public static final HashFunction SIPHASH24 = new GoogleFunction(
                 "Google.SIPHASH24",
-                value -> getHashCode(Hashing.sipHash24(), value));
+                Hashing.sipHash24());
 
-        public static final HashFunction ADLER32 = new HashFunctionImpl(
+        public static final HashFunction ADLER32 = new GoogleFunction(
                 "Google.ADLER32",
-                value -> getHashCode(Hashing.adler32(), value));
+                Hashing.adler32());
 
-        public static final HashFunction CRC32 = new HashFunctionImpl(
+        public static final HashFunction CRC32 = new GoogleFunction(
                 "Google.CRC32",
-                value -> getHashCode(Hashing.crc32(), value));
+                Hashing.crc32());
 
-        public static final HashFunction MD5 = new HashFunctionImpl(
+        public static final HashFunction MD5 = new SecuredFunction(
                 "Google.MD5",
-                value -> getHashCode(Hashing.md5(), value));
+                "MD5",
+                true);
 
-        public static final HashFunction SHA256 = new HashFunctionImpl(
+        public static final HashFunction SHA256 = new SecuredFunction(
                 "Google.SHA256",
-                value -> getHashCode(Hashing.sha256(), value));
+                "SHA-256",
+                true);
 
-        public static final HashFunction SHA512 = new HashFunctionImpl(
+        public static final HashFunction SHA512 = new SecuredFunction(
                 "Google.SHA512",
-                value -> getHashCode(Hashing.sha512(), value));
+                "SHA-512",
+                true);
 
-        public static final HashFunction SIP_HASH_24 = new HashFunctionImpl(
+        public static final HashFunction SIP_HASH_24 = new GoogleFunction(
                 "Google.SIP_HASH_24",
-                value -> getHashCode(Hashing.sipHash24(), value));
+                Hashing.sipHash24());
 
         private Google() { /* closed */ }
 
         //--------------------------------- f ---------------------------------
 
-        private static int getHashCode(com.google.common.hash.HashFunction hashFunction, String value) {
-            HashCode hashCode = hashFunction.newHasher()
-                    .putString(value, ENCODING)
-                    .hash();
+        /**
+         * Hashes cp1251 bytes of the value,
+         * {@link #hash64(String)} is native for functions with 64 bits or more.
+         */
+        static class GoogleFunction extends HashFunctionImpl {
+            private final com.google.common.hash.HashFunction hashFunction;
+
+            GoogleFunction(String name, com.google.common.hash.HashFunction hashFunction) {
+                super(name);
+                this.hashFunction = hashFunction;
+            }
+
+            @Override
+            public int bits() {
+                return Math.min(hashFunction.bits(), Long.SIZE);
+            }
+
+            @Override
+            public int hash(CharSequence value) {
+                return getHashCode(value).hashCode();
+            }
+
+            @Override
+            public int hash(byte[] buf, int off, int len) {
+                return hashFunction.hashBytes(buf, off, len).hashCode();
+            }
+
+            @Override
+            public long hash64(String value) {
+                if (hashFunction.bits() < Long.SIZE) {
+                    return super.hash64(value);
+                }
+                return getHashCode(value).asLong();
+            }
 
-            return hashCode.hashCode();
+            @Override
+            public long hash64(byte[] buf, int off, int len) {
+                if (hashFunction.bits() < Long.SIZE) {
+                    return super.hash64(buf, off, len);
+                }
+                return hashFunction.hashBytes(buf, off, len).asLong();
+            }
+
+            @Override
+            public int hashLong(long value) {
+                return hashFunction.hashLong(value).hashCode();
+            }
+
+            @Override
+            public long hash64(long value) {
+                if (hashFunction.bits() < Long.SIZE) {
+                    return super.hash64(value);
+                }
+                return hashFunction.hashLong(value).asLong();
+            }
+
+            private HashCode getHashCode(CharSequence value) {
+                return hashFunction.hashBytes(value.toString().getBytes(ENCODING));
+            }
         }
 
     }
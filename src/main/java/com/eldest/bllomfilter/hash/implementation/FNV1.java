@@ -15,6 +15,8 @@
  */
 package com.eldest.bllomfilter.hash.implementation;
 
+import java.nio.ByteBuffer;
+
 /**
  * A family of fast hash functions, originally created by Glenn Fowler, Phong Vo,
  * and improved by Landon Curt Noll.
@@ -118,6 +120,84 @@ public abstract class FNV1 {
    * @return hash value
    */
   public long getHash() {
+    return mask(hash);
+  }
+
+  /**
+   * Compute the hash value of the buffer without changing the state of this
+   * instance, so it is safe to share one instance between threads.
+   * 
+   * @param buf byte buffer from which to compute the hash
+   * @param offset starting position in the buffer
+   * @param len number of bytes after the starting position
+   * @return same value as {@link #getHash()} after <code>init(buf, offset, len)</code>
+   */
+  public long hash(byte[] buf, int offset, int len) {
+    return mask(fnv(buf, offset, len, INIT));
+  }
+
+  /**
+   * Compute the hash value of bytes of the buffer in place, e.g. of a mapped
+   * file, without changing the state of this instance. Position of the buffer is ignored.
+   * 
+   * @param buf buffer from which to compute the hash
+   * @param offset starting index in the buffer
+   * @param len number of bytes after the starting index
+   * @return same value as {@link #hash(byte[], int, int)} of the copied bytes
+   */
+  public long hash(ByteBuffer buf, int offset, int len) {
+    ByteBuffer words = LittleEndian.view(buf);
+    long seed = INIT;
+    int i = offset;
+    int end = offset + len;
+    for (; i + Long.BYTES <= end; i += Long.BYTES) {
+      seed = fnvWord(words.getLong(i), seed);
+    }
+    for (; i < end; i++) {
+      seed = fnv(buf.get(i), seed);
+    }
+    return mask(seed);
+  }
+
+  /**
+   * Compute the hash value of UTF-8 encoded value without allocating a byte
+   * array and without changing the state of this instance.
+   * 
+   * @param s value to hash; cannot be null.
+   * @return same value as {@link #getHash()} after <code>init(s.toString())</code>
+   */
+  public long hash(CharSequence s) {
+    long seed = INIT;
+    for (int i = 0; i < s.length(); ) {
+      int codePoint = Utf8.codePointAt(s, i);
+      i += Character.charCount(codePoint);
+
+      int bytes = Utf8.encode(codePoint);
+      for (int j = Utf8.length(codePoint); j > 0; j--) {
+        seed = fnv((byte) bytes, seed);
+        bytes >>>= 8;
+      }
+    }
+    return mask(seed);
+  }
+
+  /**
+   * Compute the hash value of 8 little-endian bytes of the value without allocating
+   * them and without changing the state of this instance.
+   * 
+   * @param value value to hash
+   * @return same value as {@link #hash(byte[], int, int)} of the bytes
+   */
+  public long hash(long value) {
+    return mask(fnvWord(value, INIT));
+  }
+
+  /**
+   * Limit the hash value to the size of this implementation.
+   * @param hash raw hash value
+   * @return hash value returned to the user
+   */
+  protected long mask(long hash) {
     return hash;
   }
   
@@ -130,4 +210,26 @@ public abstract class FNV1 {
    * @return the next hash value
    */
   protected abstract long fnv(byte[] buf, int offset, int len, long seed);
+
+  /**
+   * Compute the hash value of one byte.
+   * @param b next byte
+   * @param seed initial seed (or previous hash value)
+   * @return the next hash value
+   */
+  protected abstract long fnv(byte b, long seed);
+
+  /**
+   * Compute the hash value of 8 bytes of the little-endian word, the same as
+   * 8 calls of {@link #fnv(byte, long)} from the lowest byte. Implementations unroll it.
+   * @param word next 8 bytes
+   * @param seed initial seed (or previous hash value)
+   * @return the next hash value
+   */
+  protected long fnvWord(long word, long seed) {
+    for (int i = 0; i < Long.BYTES; i++) {
+      seed = fnv((byte) (word >>> (i << 3)), seed);
+    }
+    return seed;
+  }
 }
@@ -23,6 +23,8 @@ package com.eldest.bllomfilter.hash.implementation;
  */
 public class FNV164 extends FNV1 {
 
+  private static final long FNV_64_PRIME = 0x100000001b3L;
+
   /**
    * Create a hash
    *
@@ -32,11 +34,33 @@ public class FNV164 extends FNV1 {
   }
 
   protected long fnv(byte[] buf, int offset, int len, long seed) {
-    for (int i = offset; i < offset + len; i++) {
-      seed += (seed << 1) + (seed << 4) + (seed << 5) +
-        (seed << 7) + (seed << 8) + (seed << 40);
-      seed ^= buf[i];
+    int i = offset;
+    int end = offset + len;
+    for (; i + 4 <= end; i += 4) {
+      seed = seed * FNV_64_PRIME ^ buf[i];
+      seed = seed * FNV_64_PRIME ^ buf[i + 1];
+      seed = seed * FNV_64_PRIME ^ buf[i + 2];
+      seed = seed * FNV_64_PRIME ^ buf[i + 3];
+    }
+    for (; i < end; i++) {
+      seed = seed * FNV_64_PRIME ^ buf[i];
     }
     return seed;
   }
+
+  protected long fnv(byte b, long seed) {
+    return seed * FNV_64_PRIME ^ b;
+  }
+
+  protected long fnvWord(long word, long seed) {
+    seed = seed * FNV_64_PRIME ^ (byte) word;
+    seed = seed * FNV_64_PRIME ^ (byte) (word >>> 8);
+    seed = seed * FNV_64_PRIME ^ (byte) (word >>> 16);
+    seed = seed * FNV_64_PRIME ^ (byte) (word >>> 24);
+    seed = seed * FNV_64_PRIME ^ (byte) (word >>> 32);
+    seed = seed * FNV_64_PRIME ^ (byte) (word >>> 40);
+    seed = seed * FNV_64_PRIME ^ (byte) (word >>> 48);
+    seed = seed * FNV_64_PRIME ^ (byte) (word >>> 56);
+    return seed;
+  }
 }
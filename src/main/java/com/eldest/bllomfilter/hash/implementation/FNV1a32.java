@@ -26,6 +26,8 @@ package com.eldest.bllomfilter.hash.implementation;
  */
 public class FNV1a32 extends FNV1 {
 
+  private static final long FNV_32_PRIME = 0x01000193L;
+
   /**
    * Create a hash
    *
@@ -34,15 +36,38 @@ public class FNV1a32 extends FNV1 {
     INIT = FNV1_32_INIT;
   }
   
-  public long getHash() {
+  protected long mask(long hash) {
     return (hash & 0x00000000ffffffffL);
   }
   
   protected long fnv(byte[] buf, int offset, int len, long seed) {
-    for (int i = offset; i < offset + len; i++) {
-      seed ^= buf[i];
-      seed += (seed << 1) + (seed << 4) + (seed << 7) + (seed << 8) + (seed << 24);
+    int i = offset;
+    int end = offset + len;
+    for (; i + 4 <= end; i += 4) {
+      seed = (seed ^ buf[i]) * FNV_32_PRIME;
+      seed = (seed ^ buf[i + 1]) * FNV_32_PRIME;
+      seed = (seed ^ buf[i + 2]) * FNV_32_PRIME;
+      seed = (seed ^ buf[i + 3]) * FNV_32_PRIME;
+    }
+    for (; i < end; i++) {
+      seed = (seed ^ buf[i]) * FNV_32_PRIME;
     }
     return seed;
   }
+
+  protected long fnv(byte b, long seed) {
+    return (seed ^ b) * FNV_32_PRIME;
+  }
+
+  protected long fnvWord(long word, long seed) {
+    seed = (seed ^ (byte) word) * FNV_32_PRIME;
+    seed = (seed ^ (byte) (word >>> 8)) * FNV_32_PRIME;
+    seed = (seed ^ (byte) (word >>> 16)) * FNV_32_PRIME;
+    seed = (seed ^ (byte) (word >>> 24)) * FNV_32_PRIME;
+    seed = (seed ^ (byte) (word >>> 32)) * FNV_32_PRIME;
+    seed = (seed ^ (byte) (word >>> 40)) * FNV_32_PRIME;
+    seed = (seed ^ (byte) (word >>> 48)) * FNV_32_PRIME;
+    seed = (seed ^ (byte) (word >>> 56)) * FNV_32_PRIME;
+    return seed;
+  }
 }
@@ -24,6 +24,8 @@ package com.eldest.bllomfilter.hash.implementation;
  */
 public class FNV1a64 extends FNV1 {
 
+  private static final long FNV_64_PRIME = 0x100000001b3L;
+
   /**
    * Create a hash
    *
@@ -33,11 +35,33 @@ public class FNV1a64 extends FNV1 {
   }
 
   protected long fnv(byte[] buf, int offset, int len, long seed) {
-    for (int i = offset; i < offset + len; i++) {
-      seed ^= buf[i];
-      seed += (seed << 1) + (seed << 4) + (seed << 5) +
-        (seed << 7) + (seed << 8) + (seed << 40);
+    int i = offset;
+    int end = offset + len;
+    for (; i + 4 <= end; i += 4) {
+      seed = (seed ^ buf[i]) * FNV_64_PRIME;
+      seed = (seed ^ buf[i + 1]) * FNV_64_PRIME;
+      seed = (seed ^ buf[i + 2]) * FNV_64_PRIME;
+      seed = (seed ^ buf[i + 3]) * FNV_64_PRIME;
+    }
+    for (; i < end; i++) {
+      seed = (seed ^ buf[i]) * FNV_64_PRIME;
     }
     return seed;
   }
+
+  protected long fnv(byte b, long seed) {
+    return (seed ^ b) * FNV_64_PRIME;
+  }
+
+  protected long fnvWord(long word, long seed) {
+    seed = (seed ^ (byte) word) * FNV_64_PRIME;
+    seed = (seed ^ (byte) (word >>> 8)) * FNV_64_PRIME;
+    seed = (seed ^ (byte) (word >>> 16)) * FNV_64_PRIME;
+    seed = (seed ^ (byte) (word >>> 24)) * FNV_64_PRIME;
+    seed = (seed ^ (byte) (word >>> 32)) * FNV_64_PRIME;
+    seed = (seed ^ (byte) (word >>> 40)) * FNV_64_PRIME;
+    seed = (seed ^ (byte) (word >>> 48)) * FNV_64_PRIME;
+    seed = (seed ^ (byte) (word >>> 56)) * FNV_64_PRIME;
+    return seed;
+  }
 }
@@ -0,0 +1,49 @@
+package com.eldest.bllomfilter.hash.implementation;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Hash function with native 64-bit result which reads the input by words. Implementations hash an array
+ * with words assembled from its bytes and a buffer with words loaded through its little-endian view,
+ * strings are encoded to a per-thread array first.
+ * Instances are stateless and can be shared between threads.
+ */
+public abstract class Hash64 {
+
+    /**
+     * Hashes bytes of the buffer in place, e.g. of a mapped file, the result is the same as
+     * <code>hash(bytes, 0, length, seed)</code> of the copied bytes. Position and byte order of the buffer are ignored.
+     */
+    public long hash(ByteBuffer data, int offset, int length, long seed) {
+        return hashWords(LittleEndian.view(data), offset, length, seed);
+    }
+
+    public long hash(byte[] data, int offset, int length, long seed) {
+        return hashBytes(data, offset, length, seed);
+    }
+
+    /**
+     * Hashes UTF-8 encoded value, the result is the same as
+     * <code>hash(value.toString().getBytes("UTF-8"), seed)</code>.
+     */
+    public long hash(CharSequence value, long seed) {
+        int length = Utf8.encodedLength(value);
+        return hashBytes(Utf8.encode(value, length), 0, length, seed);
+    }
+
+    /**
+     * Hashes 8 little-endian bytes of the value without allocating them, the result is
+     * the same as <code>hash(bytes, 0, 8, seed)</code>.
+     */
+    public abstract long hashLong(long value, long seed);
+
+    /**
+     * Hashes bytes of the array, words are read by {@link LittleEndian#getLong(byte[], int)}
+     */
+    protected abstract long hashBytes(byte[] data, int offset, int length, long seed);
+
+    /**
+     * Hashes bytes of the little-endian buffer, the result is the same as of {@link #hashBytes(byte[], int, int, long)}
+     */
+    protected abstract long hashWords(ByteBuffer words, int offset, int length, long seed);
+}
@@ -0,0 +1,46 @@
+package com.eldest.bllomfilter.hash.implementation;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Little-endian words for the hash functions which read the input by words, so the result doesn't depend
+ * on byte order of a buffer. Arrays are read by shifts of their bytes, wrapping an array in a buffer
+ * costs an allocation on every call when escape analysis gives up on a long loop.
+ * A word of a buffer view is one load where the JVM has an intrinsic for it, e.g. of a direct buffer.
+ */
+final class LittleEndian {
+
+    private LittleEndian() { /* closed */ }
+
+    /**
+     * Returns 8 bytes starting from the index as a little-endian long
+     */
+    static long getLong(byte[] buf, int index) {
+        return (buf[index] & 0xffL)
+                | (buf[index + 1] & 0xffL) << 8
+                | (buf[index + 2] & 0xffL) << 16
+                | (buf[index + 3] & 0xffL) << 24
+                | (buf[index + 4] & 0xffL) << 32
+                | (buf[index + 5] & 0xffL) << 40
+                | (buf[index + 6] & 0xffL) << 48
+                | (buf[index + 7] & 0xffL) << 56;
+    }
+
+    /**
+     * Returns 4 bytes starting from the index as a little-endian int
+     */
+    static int getInt(byte[] buf, int index) {
+        return (buf[index] & 0xff)
+                | (buf[index + 1] & 0xff) << 8
+                | (buf[index + 2] & 0xff) << 16
+                | (buf[index + 3] & 0xff) << 24;
+    }
+
+    /**
+     * Returns the buffer if it is little-endian, otherwise its little-endian duplicate, indexes are the same
+     */
+    static ByteBuffer view(ByteBuffer buf) {
+        return buf.order() == ByteOrder.LITTLE_ENDIAN ? buf : buf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -18,6 +18,8 @@
 
 package com.eldest.bllomfilter.hash.implementation;
 
+import java.nio.ByteBuffer;
+
 /**
  * This is a very fast, non-cryptographic hash suitable for general hash-based
  * lookup.  See http://murmurhash.googlepages.com/ for more details.
@@ -27,42 +29,82 @@ package com.eldest.bllomfilter.hash.implementation;
  */
 public class MurmurHash {
   public static int hash(byte[] data, int seed) {
+    return hash(data, 0, data.length, seed);
+  }
+
+  public static int hash(byte[] data, int offset, int length, int seed) {
     int m = 0x5bd1e995;
-    int r = 24;
 
-    int h = seed ^ data.length;
-
-    int len = data.length;
-    int len_4 = len >> 2;
-
-    for (int i = 0; i < len_4; i++) {
-      int i_4 = i << 2;
-      int k = data[i_4 + 3];
-      k = k << 8;
-      k = k | (data[i_4 + 2] & 0xff);
-      k = k << 8;
-      k = k | (data[i_4 + 1] & 0xff);
-      k = k << 8;
-      k = k | (data[i_4 + 0] & 0xff);
-      k *= m;
-      k ^= k >>> r;
-      k *= m;
+    int h = seed ^ length;
+
+    int len_4 = length >> 2;
+
+    int blocksEnd = offset + (len_4 << 2);
+    for (int i = offset; i < blocksEnd; i += 4) {
+      h = mixBlock(h, LittleEndian.getInt(data, i));
+    }
+
+    int left = length - (len_4 << 2);
+    int end = offset + length;
+
+    if (left != 0) {
+      if (left >= 3) {
+        h ^= (int) data[end - 3] << 16;
+      }
+      if (left >= 2) {
+        h ^= (int) data[end - 2] << 8;
+      }
+      if (left >= 1) {
+        h ^= (int) data[end - 1];
+      }
+
       h *= m;
-      h ^= k;
     }
 
-    int len_m = len_4 << 2;
-    int left = len - len_m;
+    h ^= h >>> 13;
+    h *= m;
+    h ^= h >>> 15;
+
+    return h;
+  }
+
+  /**
+   * Hashes bytes of the buffer in place, e.g. of a mapped file, the result is the same as
+   * <code>hash(bytes, seed)</code> of the copied bytes. Position and byte order of the buffer are ignored.
+   */
+  public static int hash(ByteBuffer data, int offset, int length, int seed) {
+    int m = 0x5bd1e995;
+
+    int h = seed ^ length;
+
+    int len_4 = length >> 2;
+
+    ByteBuffer words = LittleEndian.view(data);
+
+    // two 4-byte blocks per little-endian long
+    int i = offset;
+    int blocksEnd = offset + (len_4 << 2);
+    for (; i + 8 <= blocksEnd; i += 8) {
+      long w = words.getLong(i);
+      h = mixBlock(h, (int) w);
+      h = mixBlock(h, (int) (w >>> 32));
+    }
+    if (i < blocksEnd) {
+      h = mixBlock(h, words.getInt(i));
+    }
+
+    int left = length - (len_4 << 2);
+    int end = offset + length;
 
     if (left != 0) {
       if (left >= 3) {
-        h ^= (int) data[len - 3] << 16;
+        h ^= (int) data.get(end - 3) << 16;
       }
       if (left >= 2) {
-        h ^= (int) data[len - 2] << 8;
+        h ^= (int) data.get(end - 2) << 8;
       }
       if (left >= 1) {
-        h ^= (int) data[len - 1];
+        h ^= (int) data.get(end - 1);
       }
 
       h *= m;
@@ -74,6 +116,73 @@ public class MurmurHash {
 
     return h;
   }
+
+  /**
+   * Hashes UTF-8 encoded value, the bytes are encoded to a per-thread array and read by words,
+   * the result is the same as <code>hash(value.toString().getBytes("UTF-8"), seed)</code>.
+   */
+  public static int hash(CharSequence value, int seed) {
+    int length = Utf8.encodedLength(value);
+    return hash(Utf8.encode(value, length), 0, length, seed);
+  }
+  
+  /**
+   * Hashes 8 little-endian bytes of the value without allocating them, the result is
+   * the same as <code>hash(bytes, seed)</code>.
+   */
+  public static int hashLong(long value, int seed) {
+    int m = 0x5bd1e995;
+    int r = 24;
+
+    int h = seed ^ Long.BYTES;
+
+    int k = (int) value;
+    k *= m;
+    k ^= k >>> r;
+    k *= m;
+    h *= m;
+    h ^= k;
+
+    k = (int) (value >>> 32);
+    k *= m;
+    k ^= k >>> r;
+    k *= m;
+    h *= m;
+    h ^= k;
+
+    h ^= h >>> 13;
+    h *= m;
+    h ^= h >>> 15;
+
+    return h;
+  }
+
+  /**
+   * Mixes one 4-byte block into the hash
+   */
+  private static int mixBlock(int h, int k) {
+    int m = 0x5bd1e995;
+    int r = 24;
+
+    k *= m;
+    k ^= k >>> r;
+    k *= m;
+    h *= m;
+    h ^= k;
+    return h;
+  }
+
+  /**
+   * The 64-bit finalizer of MurmurHash3, spreads every input bit over the whole result.
+   */
+  public static long fmix64(long k) {
+    k ^= k >>> 33;
+    k *= 0xff51afd7ed558ccdL;
+    k ^= k >>> 33;
+    k *= 0xc4ceb9fe1a85ec53L;
+    k ^= k >>> 33;
+    return k;
+  }
   
   /* Testing ...
   static int NUM = 1000;
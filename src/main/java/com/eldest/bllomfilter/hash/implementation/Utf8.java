@@ -0,0 +1,99 @@
+package com.eldest.bllomfilter.hash.implementation;
+
+/**
+ * Encodes characters to UTF-8 on the fly, so hash functions can consume a
+ * {@link CharSequence} without allocating a byte array.
+ * Unpaired surrogates are encoded as '?' like {@link String#getBytes(java.nio.charset.Charset)} does.
+ */
+final class Utf8 {
+
+    private static final int REPLACEMENT = '?';
+
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[256]);
+
+    private Utf8() { /* closed */ }
+
+    /**
+     * Returns number of bytes of the UTF-8 encoded value
+     */
+    static int encodedLength(CharSequence value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); ) {
+            int codePoint = codePointAt(value, i);
+            i += Character.charCount(codePoint);
+            length += length(codePoint);
+        }
+        return length;
+    }
+
+    /**
+     * Same as {@link Character#codePointAt(CharSequence, int)} but unpaired surrogate is replaced with '?'
+     */
+    static int codePointAt(CharSequence value, int index) {
+        int codePoint = Character.codePointAt(value, index);
+        return codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE
+                ? REPLACEMENT
+                : codePoint;
+    }
+
+    /**
+     * Returns number of bytes of the encoded code point
+     */
+    static int length(int codePoint) {
+        if (codePoint < 0x80) {
+            return 1;
+        } else if (codePoint < 0x800) {
+            return 2;
+        } else if (codePoint < 0x10000) {
+            return 3;
+        }
+        return 4;
+    }
+
+    /**
+     * Returns encoded code point, first byte is the lowest one
+     */
+    static int encode(int codePoint) {
+        if (codePoint < 0x80) {
+            return codePoint;
+        } else if (codePoint < 0x800) {
+            return (0xc0 | (codePoint >>> 6))
+                    | (0x80 | (codePoint & 0x3f)) << 8;
+        } else if (codePoint < 0x10000) {
+            return (0xe0 | (codePoint >>> 12))
+                    | (0x80 | ((codePoint >>> 6) & 0x3f)) << 8
+                    | (0x80 | (codePoint & 0x3f)) << 16;
+        }
+        return (0xf0 | (codePoint >>> 18))
+                | (0x80 | ((codePoint >>> 12) & 0x3f)) << 8
+                | (0x80 | ((codePoint >>> 6) & 0x3f)) << 16
+                | (0x80 | (codePoint & 0x3f)) << 24;
+    }
+
+    /**
+     * Encodes the value to a per-thread array, for hash functions which read the bytes by words.
+     * The array is overwritten by the next call of the same thread.
+     *
+     * @param length {@link #encodedLength(CharSequence)} of the value
+     */
+    static byte[] encode(CharSequence value, int length) {
+        byte[] bytes = BUFFER.get();
+        if (bytes.length < length) {
+            bytes = new byte[Math.max(length, bytes.length << 1)];
+            BUFFER.set(bytes);
+        }
+
+        int position = 0;
+        for (int i = 0; i < value.length(); ) {
+            int codePoint = codePointAt(value, i);
+            i += Character.charCount(codePoint);
+
+            int encoded = encode(codePoint);
+            for (int j = length(codePoint); j > 0; j--) {
+                bytes[position++] = (byte) encoded;
+                encoded >>>= 8;
+            }
+        }
+        return bytes;
+    }
+}
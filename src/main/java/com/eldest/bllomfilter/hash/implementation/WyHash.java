@@ -0,0 +1,174 @@
+package com.eldest.bllomfilter.hash.implementation;
+
+import java.nio.ByteBuffer;
+
+/**
+ * wyhash (final version 4) by Wang Yi, mixes 16 bytes per 64x64-bit multiplication, inputs up to 16 bytes
+ * take a single multiplication. Results are the same as of the reference implementation with the default secret.
+ *
+ * @see <a href="https://github.com/wangyi-fudan/wyhash">wyhash</a>
+ */
+public final class WyHash extends Hash64 {
+
+    private static final long SECRET_0 = 0xa0761d6478bd642fL;
+    private static final long SECRET_1 = 0xe7037ed1a0b428dbL;
+    private static final long SECRET_2 = 0x8ebc6af09c88c6e3L;
+    private static final long SECRET_3 = 0x589965cc75374cc3L;
+
+    @Override
+    protected long hashBytes(byte[] data, int offset, int length, long seed) {
+        seed ^= mix(seed ^ SECRET_0, SECRET_1);
+        long a;
+        long b;
+
+        if (length <= 16) {
+            if (length >= 4) {
+                int shift = (length >>> 3) << 2;
+                int last = offset + length - 4;
+                a = (getUnsignedInt(data, offset) << 32) | getUnsignedInt(data, offset + shift);
+                b = (getUnsignedInt(data, last) << 32) | getUnsignedInt(data, last - shift);
+            } else if (length > 0) {
+                a = (data[offset] & 0xffL) << 16
+                        | (data[offset + (length >>> 1)] & 0xffL) << 8
+                        | (data[offset + length - 1] & 0xffL);
+                b = 0;
+            } else {
+                a = 0;
+                b = 0;
+            }
+        } else {
+            seed = mixBlocks(data, offset, length, seed);
+            int end = offset + length;
+            a = LittleEndian.getLong(data, end - 16);
+            b = LittleEndian.getLong(data, end - 8);
+        }
+        return finish(a, b, seed, length);
+    }
+
+    @Override
+    protected long hashWords(ByteBuffer words, int offset, int length, long seed) {
+        seed ^= mix(seed ^ SECRET_0, SECRET_1);
+        long a;
+        long b;
+
+        if (length <= 16) {
+            if (length >= 4) {
+                int shift = (length >>> 3) << 2;
+                int last = offset + length - 4;
+                a = (getUnsignedInt(words, offset) << 32) | getUnsignedInt(words, offset + shift);
+                b = (getUnsignedInt(words, last) << 32) | getUnsignedInt(words, last - shift);
+            } else if (length > 0) {
+                a = (words.get(offset) & 0xffL) << 16
+                        | (words.get(offset + (length >>> 1)) & 0xffL) << 8
+                        | (words.get(offset + length - 1) & 0xffL);
+                b = 0;
+            } else {
+                a = 0;
+                b = 0;
+            }
+        } else {
+            seed = mixBlocks(words, offset, length, seed);
+            int end = offset + length;
+            a = words.getLong(end - 16);
+            b = words.getLong(end - 8);
+        }
+        return finish(a, b, seed, length);
+    }
+
+    @Override
+    public long hashLong(long value, long seed) {
+        seed ^= mix(seed ^ SECRET_0, SECRET_1);
+        long low = value & 0xffffffffL;
+        long high = value >>> 32;
+        return finish(low << 32 | high, high << 32 | low, seed, Long.BYTES);
+    }
+
+    //--------------------------------- support ---------------------------------
+
+    /**
+     * Mixes all but the last 16 bytes of an input longer than 16 bytes, kept apart so short inputs
+     * take a small method which the JIT inlines
+     */
+    private static long mixBlocks(byte[] data, int offset, int length, long seed) {
+        int i = offset;
+        int left = length;
+        if (left > 48) {
+            long see1 = seed;
+            long see2 = seed;
+            do {
+                seed = mix(LittleEndian.getLong(data, i) ^ SECRET_1, LittleEndian.getLong(data, i + 8) ^ seed);
+                see1 = mix(LittleEndian.getLong(data, i + 16) ^ SECRET_2, LittleEndian.getLong(data, i + 24) ^ see1);
+                see2 = mix(LittleEndian.getLong(data, i + 32) ^ SECRET_3, LittleEndian.getLong(data, i + 40) ^ see2);
+                i += 48;
+                left -= 48;
+            } while (left > 48);
+            seed ^= see1 ^ see2;
+        }
+        while (left > 16) {
+            seed = mix(LittleEndian.getLong(data, i) ^ SECRET_1, LittleEndian.getLong(data, i + 8) ^ seed);
+            i += 16;
+            left -= 16;
+        }
+        return seed;
+    }
+
+    private static long mixBlocks(ByteBuffer words, int offset, int length, long seed) {
+        int i = offset;
+        int left = length;
+        if (left > 48) {
+            long see1 = seed;
+            long see2 = seed;
+            do {
+                seed = mix(words.getLong(i) ^ SECRET_1, words.getLong(i + 8) ^ seed);
+                see1 = mix(words.getLong(i + 16) ^ SECRET_2, words.getLong(i + 24) ^ see1);
+                see2 = mix(words.getLong(i + 32) ^ SECRET_3, words.getLong(i + 40) ^ see2);
+                i += 48;
+                left -= 48;
+            } while (left > 48);
+            seed ^= see1 ^ see2;
+        }
+        while (left > 16) {
+            seed = mix(words.getLong(i) ^ SECRET_1, words.getLong(i + 8) ^ seed);
+            i += 16;
+            left -= 16;
+        }
+        return seed;
+    }
+
+    private static long getUnsignedInt(byte[] data, int index) {
+        return LittleEndian.getInt(data, index) & 0xffffffffL;
+    }
+
+    private static long getUnsignedInt(ByteBuffer words, int index) {
+        return words.getInt(index) & 0xffffffffL;
+    }
+
+    private static long finish(long a, long b, long seed, int length) {
+        a ^= SECRET_1;
+        b ^= seed;
+        long low = a * b;
+        long high = multiplyHigh(a, b);
+        return mix(low ^ SECRET_0 ^ length, high ^ SECRET_1);
+    }
+
+    /**
+     * Returns xor of the low and the high halves of the 128-bit product
+     */
+    private static long mix(long a, long b) {
+        return a * b ^ multiplyHigh(a, b);
+    }
+
+    /**
+     * Returns the high 64 bits of the unsigned 128-bit product, there is no intrinsic in Java 8
+     */
+    private static long multiplyHigh(long a, long b) {
+        long a0 = a & 0xffffffffL;
+        long a1 = a >>> 32;
+        long b0 = b & 0xffffffffL;
+        long b1 = b >>> 32;
+
+        long t = a1 * b0 + ((a0 * b0) >>> 32);
+        long w1 = (t & 0xffffffffL) + a0 * b1;
+        return a1 * b1 + (t >>> 32) + (w1 >>> 32);
+    }
+}
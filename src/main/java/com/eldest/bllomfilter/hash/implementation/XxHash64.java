@@ -0,0 +1,140 @@
+package com.eldest.bllomfilter.hash.implementation;
+
+import java.nio.ByteBuffer;
+
+/**
+ * xxHash64 by Yann Collet, reads input by 8 bytes and keeps 4 independent lanes for inputs of 32 bytes and more.
+ * Results are the same as of the reference implementation.
+ *
+ * @see <a href="https://github.com/Cyan4973/xxHash/blob/dev/doc/xxhash_spec.md">xxHash specification</a>
+ */
+public final class XxHash64 extends Hash64 {
+
+    private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME64_3 = 0x165667B19E3779F9L;
+    private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+
+    @Override
+    protected long hashBytes(byte[] data, int offset, int length, long seed) {
+        int end = offset + length;
+        int i = offset;
+        long h;
+
+        if (length >= 32) {
+            long v1 = seed + PRIME64_1 + PRIME64_2;
+            long v2 = seed + PRIME64_2;
+            long v3 = seed;
+            long v4 = seed - PRIME64_1;
+            for (int limit = end - 32; i <= limit; i += 32) {
+                v1 = round(v1, LittleEndian.getLong(data, i));
+                v2 = round(v2, LittleEndian.getLong(data, i + 8));
+                v3 = round(v3, LittleEndian.getLong(data, i + 16));
+                v4 = round(v4, LittleEndian.getLong(data, i + 24));
+            }
+            h = merge(v1, v2, v3, v4);
+        } else {
+            h = seed + PRIME64_5;
+        }
+        h += length;
+
+        for (; i + 8 <= end; i += 8) {
+            h = mix8(h, LittleEndian.getLong(data, i));
+        }
+        if (i + 4 <= end) {
+            h = mix4(h, LittleEndian.getInt(data, i) & 0xffffffffL);
+            i += 4;
+        }
+        for (; i < end; i++) {
+            h = mix1(h, data[i]);
+        }
+        return avalanche(h);
+    }
+
+    @Override
+    protected long hashWords(ByteBuffer words, int offset, int length, long seed) {
+        int end = offset + length;
+        int i = offset;
+        long h;
+
+        if (length >= 32) {
+            long v1 = seed + PRIME64_1 + PRIME64_2;
+            long v2 = seed + PRIME64_2;
+            long v3 = seed;
+            long v4 = seed - PRIME64_1;
+            for (int limit = end - 32; i <= limit; i += 32) {
+                v1 = round(v1, words.getLong(i));
+                v2 = round(v2, words.getLong(i + 8));
+                v3 = round(v3, words.getLong(i + 16));
+                v4 = round(v4, words.getLong(i + 24));
+            }
+            h = merge(v1, v2, v3, v4);
+        } else {
+            h = seed + PRIME64_5;
+        }
+        h += length;
+
+        for (; i + 8 <= end; i += 8) {
+            h = mix8(h, words.getLong(i));
+        }
+        if (i + 4 <= end) {
+            h = mix4(h, words.getInt(i) & 0xffffffffL);
+            i += 4;
+        }
+        for (; i < end; i++) {
+            h = mix1(h, words.get(i));
+        }
+        return avalanche(h);
+    }
+
+    @Override
+    public long hashLong(long value, long seed) {
+        return avalanche(mix8(seed + PRIME64_5 + Long.BYTES, value));
+    }
+
+    //--------------------------------- support ---------------------------------
+
+    private static long round(long acc, long input) {
+        acc += input * PRIME64_2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME64_1;
+    }
+
+    private static long mergeRound(long acc, long value) {
+        acc ^= round(0, value);
+        return acc * PRIME64_1 + PRIME64_4;
+    }
+
+    private static long merge(long v1, long v2, long v3, long v4) {
+        long h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+        h = mergeRound(h, v1);
+        h = mergeRound(h, v2);
+        h = mergeRound(h, v3);
+        return mergeRound(h, v4);
+    }
+
+    private static long mix8(long h, long input) {
+        h ^= round(0, input);
+        return Long.rotateLeft(h, 27) * PRIME64_1 + PRIME64_4;
+    }
+
+    private static long mix4(long h, long input) {
+        h ^= input * PRIME64_1;
+        return Long.rotateLeft(h, 23) * PRIME64_2 + PRIME64_3;
+    }
+
+    private static long mix1(long h, byte input) {
+        h ^= (input & 0xff) * PRIME64_5;
+        return Long.rotateLeft(h, 11) * PRIME64_1;
+    }
+
+    private static long avalanche(long h) {
+        h ^= h >>> 33;
+        h *= PRIME64_2;
+        h ^= h >>> 29;
+        h *= PRIME64_3;
+        h ^= h >>> 32;
+        return h;
+    }
+}
@@ -0,0 +1,35 @@
+package com.eldest.bllomfilter.metrics;
+
+import com.eldest.bllomfilter.BloomFilter;
+import com.eldest.bllomfilter.MeteredBloomFilter;
+import com.eldest.bllomfilter.hash.HashFunction;
+
+/**
+ * Receives events of {@link MeteredBloomFilter}, implement it to publish them to any metrics library. <br>
+ * Methods are called on the hot path from many threads, so they must be cheap and thread safe.
+ *
+ * @see BloomFilterStats
+ */
+public interface BloomFilterMetrics {
+
+    /**
+     * Called after values are added, {@code changed} of them have changed any bit
+     */
+    void recordAdds(long values, long changed);
+
+    /**
+     * Called after values are checked, {@code found} of them were probably in the filter
+     */
+    void recordChecks(long values, long found);
+
+    /**
+     * Called for a sample of checked values with the time of one hash computation
+     */
+    void recordHash(HashFunction hashFunction, long nanos);
+
+    /**
+     * Called once when the metrics are attached to the filter, gauges like fill ratio can be read from it
+     */
+    default void bind(BloomFilter bloomFilter) {
+    }
+}
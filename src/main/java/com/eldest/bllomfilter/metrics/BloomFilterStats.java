@@ -0,0 +1,163 @@
+package com.eldest.bllomfilter.metrics;
+
+import com.eldest.bllomfilter.BloomFilter;
+import com.eldest.bllomfilter.hash.HashFunction;
+import com.google.common.base.MoreObjects;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link BloomFilterMetrics} kept in {@link LongAdder} counters, which are striped between threads,
+ * so counting doesn't make the threads contend. Can be published to JMX by {@link #register(String)}.
+ */
+public class BloomFilterStats implements BloomFilterMetrics, BloomFilterStatsMXBean {
+
+    public static final String DOMAIN = "com.eldest.bllomfilter";
+
+    private final LongAdder adds = new LongAdder();
+    private final LongAdder changingAdds = new LongAdder();
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder positives = new LongAdder();
+    private final ConcurrentMap<String, HashTime> hashTimes = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter bloomFilter;
+
+    //--------------------------------- metrics ---------------------------------
+
+    @Override
+    public void recordAdds(long values, long changed) {
+        adds.add(values);
+        if (changed != 0) {
+            changingAdds.add(changed);
+        }
+    }
+
+    @Override
+    public void recordChecks(long values, long found) {
+        checks.add(values);
+        if (found != 0) {
+            positives.add(found);
+        }
+    }
+
+    @Override
+    public void recordHash(HashFunction hashFunction, long nanos) {
+        HashTime hashTime = hashTimes.get(hashFunction.getName());
+        if (hashTime == null) {
+            hashTime = hashTimes.computeIfAbsent(hashFunction.getName(), name -> new HashTime());
+        }
+        hashTime.count.increment();
+        hashTime.nanos.add(nanos);
+    }
+
+    @Override
+    public void bind(BloomFilter bloomFilter) {
+        this.bloomFilter = bloomFilter;
+    }
+
+    //--------------------------------- MXBean ---------------------------------
+
+    @Override
+    public long getAdds() {
+        return adds.sum();
+    }
+
+    @Override
+    public long getChangingAdds() {
+        return changingAdds.sum();
+    }
+
+    @Override
+    public long getChecks() {
+        return checks.sum();
+    }
+
+    @Override
+    public long getPositives() {
+        return positives.sum();
+    }
+
+    @Override
+    public double getPositiveRate() {
+        long checks = getChecks();
+        return checks == 0 ? 0 : (double) getPositives() / checks;
+    }
+
+    @Override
+    public double getFillRatio() {
+        return bloomFilter != null ? bloomFilter.fillRatio() : 0;
+    }
+
+    @Override
+    public double getExpectedFpp() {
+        return bloomFilter != null ? bloomFilter.expectedFpp() : 0;
+    }
+
+    @Override
+    public long getApproximateElementCount() {
+        return bloomFilter != null ? bloomFilter.approximateElementCount() : 0;
+    }
+
+    @Override
+    public Map<String, Double> getAverageHashNanos() {
+        Map<String, Double> averages = new TreeMap<>();
+        hashTimes.forEach((name, hashTime) -> {
+            long count = hashTime.count.sum();
+            averages.put(name, count == 0 ? 0 : (double) hashTime.nanos.sum() / count);
+        });
+        return averages;
+    }
+
+    //--------------------------------- JMX ---------------------------------
+
+    /**
+     * Registers the stats in the platform MBean server as {@code com.eldest.bllomfilter:type=BloomFilter,name=<name>}
+     */
+    public ObjectName register(String name) {
+        try {
+            ObjectName objectName = objectName(name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Can't register BloomFilter stats: " + name, e);
+        }
+    }
+
+    public static void unregister(String name) {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = objectName(name);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Can't unregister BloomFilter stats: " + name, e);
+        }
+    }
+
+    public static ObjectName objectName(String name) throws JMException {
+        return new ObjectName(DOMAIN + ":type=BloomFilter,name=" + ObjectName.quote(name));
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("adds", getAdds())
+                .add("checks", getChecks())
+                .add("positives", getPositives())
+                .toString();
+    }
+
+    private static class HashTime {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+    }
+}
@@ -0,0 +1,39 @@
+package com.eldest.bllomfilter.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link BloomFilterStats}, counters are cumulative so rates are computed by the monitoring.
+ */
+public interface BloomFilterStatsMXBean {
+
+    long getAdds();
+
+    /**
+     * Returns number of added values which have changed any bit
+     */
+    long getChangingAdds();
+
+    long getChecks();
+
+    /**
+     * Returns number of checks which have found the value
+     */
+    long getPositives();
+
+    /**
+     * Returns fraction of checks which have found the value
+     */
+    double getPositiveRate();
+
+    double getFillRatio();
+
+    double getExpectedFpp();
+
+    long getApproximateElementCount();
+
+    /**
+     * Returns average time of one hash computation by hash function name
+     */
+    Map<String, Double> getAverageHashNanos();
+}
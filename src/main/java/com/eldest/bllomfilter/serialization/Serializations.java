@@ -1,9 +1,58 @@
 package com.eldest.bllomfilter.serialization;
 
+import com.eldest.bllomfilter.BinaryFuseFilter;
+import com.eldest.bllomfilter.BloomFilter;
+import com.eldest.bllomfilter.HashStrategies;
+import com.eldest.bllomfilter.HashStrategy;
+import com.eldest.bllomfilter.bits.BitArray;
+import com.eldest.bllomfilter.bits.LongBitArray;
+import com.eldest.bllomfilter.hash.HashException;
+import com.eldest.bllomfilter.hash.HashFunction;
+import com.eldest.bllomfilter.hash.Hashes;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.CountingInputStream;
+
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
 
+/**
+ * Java serialization and the binary format of BloomFilter. <br>
+ * BloomFilter format, all numbers are little-endian. Version 2 maps hashes to bits by multiply-shift,
+ * so filters of version 1 are not readable:
+ * <pre>
+ * int    magic "BLMF"
+ * short  version
+ * string hash strategy name      (string is short length + UTF-8 bytes)
+ * int    number of hashes
+ * int    number of hash functions, then every function name
+ * long   number of bits
+ * long[] words, bit i is (words[i / 64] >>> (i % 64)) & 1
+ * </pre>
+ * BinaryFuseFilter format:
+ * <pre>
+ * int    magic "BFUF"
+ * short  version
+ * string hash function name
+ * long   seed
+ * int    segment length
+ * int    segment count length
+ * byte   fingerprint bits
+ * int    number of fingerprint bytes, then the bytes
+ * </pre>
+ */
 public class Serializations {
 
+    static final int MAGIC = 0x424c4d46;
+    static final int FUSE_MAGIC = 0x42465546;
+    static final short VERSION = 2;
+    static final short FUSE_VERSION = 1;
+
+    private static final int BUFFER_SIZE = 8192;
+
     private Serializations() { /* closed */ }
 
     public static byte[] serialize(Object obj) throws SerializationException {
@@ -29,4 +78,272 @@ public class Serializations {
         }
     }
 
+    //--------------------------------- BloomFilter ---------------------------------
+
+    /**
+     * Writes filter in the binary format, hash functions must be bundled ones from {@link Hashes}.
+     * The stream is not closed.
+     */
+    public static void writeTo(BloomFilter bloomFilter, OutputStream outputStream) throws SerializationException {
+        HashStrategy hashStrategy = bloomFilter.getHashStrategy();
+        BitArray bitArray = bloomFilter.getBitArray();
+
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC);
+            buffer.putShort(VERSION);
+            putString(buffer, hashStrategy.getName());
+            buffer.putInt(hashStrategy.getNumberOfHashes());
+            buffer.putInt(hashStrategy.getHashFunctions().size());
+            for (HashFunction hashFunction : hashStrategy.getHashFunctions()) {
+                putString(buffer, hashFunction.getName());
+            }
+            buffer.putLong(bitArray.bitSize());
+
+            for (int i = 0; i < bitArray.numberOfWords(); i++) {
+                if (buffer.remaining() < Long.BYTES) {
+                    flush(buffer, outputStream);
+                }
+                buffer.putLong(bitArray.getWord(i));
+            }
+            flush(buffer, outputStream);
+
+        } catch (IOException e) {
+            throw new SerializationException(e);
+        }
+    }
+
+    /**
+     * Reads filter written by {@link #writeTo(BloomFilter, OutputStream)}. The stream is not closed.
+     */
+    public static BloomFilter readFrom(InputStream inputStream) throws SerializationException {
+        try {
+            DataInputStream input = new DataInputStream(inputStream);
+            Header header = readHeader(input);
+
+            // segments grow as words arrive, so a corrupt header can't allocate more than the stream holds
+            byte[] bytes = new byte[BUFFER_SIZE];
+            int numberOfWords = header.getNumberOfWords();
+            long[][] segments = new long[(numberOfWords - 1) / LongBitArray.WORDS_PER_SEGMENT + 1][];
+            for (int s = 0; s < segments.length; s++) {
+                int length = Math.min(LongBitArray.WORDS_PER_SEGMENT, numberOfWords - s * LongBitArray.WORDS_PER_SEGMENT);
+                segments[s] = readWords(input, bytes, length);
+            }
+            LongBitArray bitArray = new LongBitArray(segments, header.getBitSize());
+
+            return new BloomFilter.Builder()
+                    .setHashStrategy(header.getHashStrategy())
+                    .setBitArray(bitArray)
+                    .build();
+
+        } catch (IOException e) {
+            throw new SerializationException(e);
+        }
+    }
+
+    /**
+     * Reads header of the binary format, the stream stays at the first word.
+     * Can be used to read the words in another way, e.g. to map them.
+     */
+    public static Header readHeader(InputStream inputStream) throws SerializationException {
+        CountingInputStream countingStream = new CountingInputStream(inputStream);
+        DataInputStream input = new DataInputStream(countingStream);
+        try {
+            if (Integer.reverseBytes(input.readInt()) != MAGIC) {
+                throw new SerializationException("Not a BloomFilter");
+            }
+            short version = Short.reverseBytes(input.readShort());
+            if (version != VERSION) {
+                throw new SerializationException("Unsupported BloomFilter version: " + version);
+            }
+
+            String strategyName = readString(input);
+            int numberOfHashes = Integer.reverseBytes(input.readInt());
+            int numberOfFunctions = Integer.reverseBytes(input.readInt());
+            ImmutableSet.Builder<HashFunction> hashFunctions = ImmutableSet.builder();
+            for (int i = 0; i < numberOfFunctions; i++) {
+                hashFunctions.add(Hashes.forName(readString(input)));
+            }
+            HashStrategy hashStrategy = createHashStrategy(strategyName, numberOfHashes, hashFunctions.build());
+
+            long bitSize = Long.reverseBytes(input.readLong());
+            if (bitSize <= 0 || bitSize > (long) Integer.MAX_VALUE * Long.SIZE) {
+                throw new SerializationException("Unsupported number of bits: " + bitSize);
+            }
+            if ("BLOCKED".equals(strategyName) && bitSize % HashStrategies.BLOCK_SIZE != 0) {
+                throw new SerializationException("Blocked filter of " + bitSize + " bits is not made of "
+                        + HashStrategies.BLOCK_SIZE + "-bit blocks");
+            }
+
+            return new Header(hashStrategy, bitSize, countingStream.getCount());
+
+        } catch (IOException | HashException e) {
+            throw new SerializationException(e);
+        }
+    }
+
+    //--------------------------------- BinaryFuseFilter ---------------------------------
+
+    /**
+     * Writes filter in the binary format, hash function must be a bundled one from {@link Hashes}.
+     * The stream is not closed.
+     */
+    public static void writeTo(BinaryFuseFilter filter, OutputStream outputStream) throws SerializationException {
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(FUSE_MAGIC);
+            buffer.putShort(FUSE_VERSION);
+            putString(buffer, filter.getHashFunction().getName());
+            buffer.putLong(filter.getSeed());
+            buffer.putInt(filter.getSegmentLength());
+            buffer.putInt(filter.getSegmentCountLength());
+            buffer.put((byte) filter.getFingerprintBits());
+            buffer.putInt(filter.getFingerprints().length);
+            flush(buffer, outputStream);
+
+            outputStream.write(filter.getFingerprints());
+
+        } catch (IOException e) {
+            throw new SerializationException(e);
+        }
+    }
+
+    /**
+     * Reads filter written by {@link #writeTo(BinaryFuseFilter, OutputStream)}. The stream is not closed.
+     */
+    public static BinaryFuseFilter readBinaryFuseFilter(InputStream inputStream) throws SerializationException {
+        DataInputStream input = new DataInputStream(inputStream);
+        try {
+            if (Integer.reverseBytes(input.readInt()) != FUSE_MAGIC) {
+                throw new SerializationException("Not a BinaryFuseFilter");
+            }
+            short version = Short.reverseBytes(input.readShort());
+            if (version != FUSE_VERSION) {
+                throw new SerializationException("Unsupported BinaryFuseFilter version: " + version);
+            }
+
+            HashFunction hashFunction = Hashes.forName(readString(input));
+            long seed = Long.reverseBytes(input.readLong());
+            int segmentLength = Integer.reverseBytes(input.readInt());
+            int segmentCountLength = Integer.reverseBytes(input.readInt());
+            int fingerprintBits = input.readByte();
+            int numberOfBytes = Integer.reverseBytes(input.readInt());
+
+            if (fingerprintBits != 8 && fingerprintBits != 16) {
+                throw new SerializationException("Unsupported number of fingerprint bits: " + fingerprintBits);
+            }
+            if (segmentLength <= 0 || Integer.bitCount(segmentLength) != 1) {
+                throw new SerializationException("Unsupported segment length: " + segmentLength);
+            }
+            if (segmentCountLength <= 0 || segmentCountLength % segmentLength != 0) {
+                throw new SerializationException("Unsupported segment count length: " + segmentCountLength);
+            }
+            long expectedBytes = ((long) segmentCountLength + 2L * segmentLength) * (fingerprintBits / 8);
+            if (numberOfBytes != expectedBytes) {
+                throw new SerializationException("Number of fingerprint bytes " + numberOfBytes
+                        + " doesn't match segments, expected " + expectedBytes);
+            }
+
+            byte[] fingerprints = new byte[numberOfBytes];
+            input.readFully(fingerprints);
+
+            return new BinaryFuseFilter(hashFunction, seed, segmentLength, segmentCountLength, fingerprintBits, fingerprints);
+
+        } catch (IOException | HashException | IllegalArgumentException e) {
+            throw new SerializationException(e);
+        }
+    }
+
+    //--------------------------------- Header ---------------------------------
+
+    /** Header of the binary format. */
+    public static class Header {
+        private final HashStrategy hashStrategy;
+        private final long bitSize;
+        private final long length;
+
+        Header(HashStrategy hashStrategy, long bitSize, long length) {
+            this.hashStrategy = hashStrategy;
+            this.bitSize = bitSize;
+            this.length = length;
+        }
+
+        public HashStrategy getHashStrategy() {
+            return hashStrategy;
+        }
+
+        public long getBitSize() {
+            return bitSize;
+        }
+
+        public int getNumberOfWords() {
+            return LongBitArray.numberOfWords(bitSize);
+        }
+
+        /**
+         * Returns number of bytes in header, words start right after it
+         */
+        public long getLength() {
+            return length;
+        }
+    }
+
+    //--------------------------------- support ---------------------------------
+
+    /**
+     * Reads {@code length} words through {@code bytes}, the array is doubled only when it's full
+     */
+    private static long[] readWords(DataInputStream input, byte[] bytes, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        long[] words = new long[Math.min(length, bytes.length / Long.BYTES)];
+        for (int from = 0; from < length; ) {
+            if (from == words.length) {
+                words = Arrays.copyOf(words, (int) Math.min(length, 2L * words.length));
+            }
+            int count = Math.min(bytes.length / Long.BYTES, words.length - from);
+            input.readFully(bytes, 0, count * Long.BYTES);
+            for (int i = 0; i < count; i++) {
+                words[from + i] = buffer.getLong(i * Long.BYTES);
+            }
+            from += count;
+        }
+        return words;
+    }
+
+    static HashStrategy createHashStrategy(String name, int numberOfHashes, Set<HashFunction> hashFunctions) {
+        switch (name) {
+            case "FUNCTIONS":
+                return HashStrategies.functions(hashFunctions);
+            case "DOUBLE_HASHING":
+                return HashStrategies.doubleHashing(single(hashFunctions), numberOfHashes);
+            case "BLOCKED":
+                return HashStrategies.blocked(single(hashFunctions), numberOfHashes);
+            default:
+                throw new SerializationException("Unknown hash strategy: " + name);
+        }
+    }
+
+    private static HashFunction single(Set<HashFunction> hashFunctions) {
+        if (hashFunctions.size() != 1) {
+            throw new SerializationException("Expected one hash function: " + hashFunctions);
+        }
+        return hashFunctions.iterator().next();
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[Short.reverseBytes(input.readShort()) & 0xffff];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void flush(ByteBuffer buffer, OutputStream outputStream) throws IOException {
+        outputStream.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+    }
 }
@@ -0,0 +1,105 @@
+package com.eldest.bloomfilter;
+
+import com.eldest.bllomfilter.BinaryFuseFilter;
+import com.eldest.bllomfilter.serialization.Serializations;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+public class BinaryFuseFilterTest {
+    private final static Logger LOG = LoggerFactory.getLogger(BinaryFuseFilterTest.class);
+
+    private static final int NUMBER_OF_VALUES = 100_000;
+    private static final int NUMBER_OF_CHECKS = 200_000;
+
+    //--------------------------------- support ---------------------------------
+
+    private static List<String> values(int numberOfValues) {
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < numberOfValues; i++) {
+            values.add("value" + i);
+        }
+        return values;
+    }
+
+    private static int falsePositives(BinaryFuseFilter filter) {
+        int falsePositives = 0;
+        for (int i = 0; i < NUMBER_OF_CHECKS; i++) {
+            if (filter.check("missing" + i)) {
+                falsePositives++;
+            }
+        }
+        return falsePositives;
+    }
+
+    //--------------------------------- tests ---------------------------------
+
+    @Test
+    public void testFilter() throws Exception {
+        List<String> values = values(NUMBER_OF_VALUES);
+        BinaryFuseFilter filter = new BinaryFuseFilter.Builder().setFilterData(values).build();
+        LOG.info("BinaryFuseFilter: {}, bits per value: {}", filter, (double) filter.size() / NUMBER_OF_VALUES);
+
+        for (String value : values) {
+            assertThat(filter.check(value), is(true));
+        }
+        int falsePositives = falsePositives(filter);
+        LOG.info("BinaryFuseFilter false positives: {}", falsePositives);
+        assertThat(falsePositives, lessThan(NUMBER_OF_CHECKS / 200));
+    }
+
+    @Test
+    public void testSixteenBits() throws Exception {
+        List<String> values = values(NUMBER_OF_VALUES);
+        values.addAll(values(10));
+        BinaryFuseFilter filter = new BinaryFuseFilter.Builder()
+                .setFalsePositiveRate(0.0001)
+                .setFilterData(values)
+                .build();
+
+        assertThat(filter.getFingerprintBits(), is(16));
+        for (String value : values) {
+            assertThat(filter.check(value), is(true));
+        }
+        assertThat(falsePositives(filter), lessThan(NUMBER_OF_CHECKS / 10_000));
+    }
+
+    @Test
+    public void testSmall() throws Exception {
+        for (int size = 0; size < 50; size++) {
+            List<String> values = values(size);
+            BinaryFuseFilter filter = new BinaryFuseFilter.Builder().setFilterData(values).build();
+            for (String value : values) {
+                assertThat(filter.check(value), is(true));
+            }
+        }
+        assertThat(new BinaryFuseFilter.Builder().setFilterData(Collections.emptyList()).build().size() > 0, is(true));
+    }
+
+    @Test
+    public void testWriteRead() throws Exception {
+        List<String> values = values(NUMBER_OF_VALUES);
+        BinaryFuseFilter filter = new BinaryFuseFilter.Builder().setFilterData(values).build();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Serializations.writeTo(filter, outputStream);
+        BinaryFuseFilter restored = Serializations.readBinaryFuseFilter(new ByteArrayInputStream(outputStream.toByteArray()));
+
+        for (String value : values) {
+            assertThat(restored.check(value), is(true));
+        }
+        for (int i = 0; i < NUMBER_OF_CHECKS; i++) {
+            assertThat(restored.check("missing" + i), is(filter.check("missing" + i)));
+        }
+    }
+}
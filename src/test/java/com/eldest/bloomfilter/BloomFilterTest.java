@@ -1,18 +1,27 @@
 package com.eldest.bloomfilter;
 
 import com.eldest.bllomfilter.BloomFilter;
+import com.eldest.bllomfilter.HashStrategies;
+import com.eldest.bllomfilter.hash.Hashes;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
@@ -25,6 +34,8 @@ public class BloomFilterTest {
 
     private static Path wordListPath;
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
 
     //--------------------------------- support ---------------------------------
 
@@ -72,16 +83,311 @@ public class BloomFilterTest {
         check(bloomFilter, "crullers", true);
     }
 
+    @Test
+    public void testDoubleHashing() throws Exception {
+        List<String> strings = Files.lines(wordListPath, ENCODING)
+                .collect(Collectors.toList());
+
+        BloomFilter bloomFilter = new BloomFilter.Builder()
+                .setDoubleHashing(Hashes.Google.MURMUR3_128)
+                .setFilterData(strings)
+                .build();
+
+        assertThat(bloomFilter.getHashStrategy().getNumberOfHashes(), is(7));
+
+        check(bloomFilter, "777", false);
+        check(bloomFilter, "waffs", true);
+        check(bloomFilter, "waffsd", false);
+        check(bloomFilter, "unvizards", true);
+        check(bloomFilter, "way's", true);
+        check(bloomFilter, "crullers", true);
+    }
+
+    @Test
+    public void testBlocked() throws Exception {
+        List<String> strings = Files.lines(wordListPath, ENCODING)
+                .collect(Collectors.toList());
+
+        BloomFilter bloomFilter = new BloomFilter.Builder()
+                .setBlocked(true)
+                .setFilterData(strings)
+                .build();
+
+        LOG.info("Blocked BloomFilter size: {}, hashes: {}",
+                bloomFilter.size(), bloomFilter.getHashStrategy().getNumberOfHashes());
+        assertThat(bloomFilter.size() % 512, is(0L));
+        for (String value : strings) {
+            assertThat(bloomFilter.check(value), is(true));
+        }
+
+        int falsePositives = 0;
+        int numberOfChecks = 100_000;
+        for (int i = 0; i < numberOfChecks; i++) {
+            if (bloomFilter.check("not a word " + i)) {
+                falsePositives++;
+            }
+        }
+        LOG.info("Blocked BloomFilter false positives: {}", falsePositives);
+        assertThat(falsePositives < numberOfChecks * 0.015, is(true));
+    }
+
+    @Test
+    public void testBatch() throws Exception {
+        String[] strings = Files.lines(wordListPath, ENCODING).toArray(String[]::new);
+
+        BloomFilter bloomFilter = new BloomFilter.Builder()
+                .setDoubleHashing(Hashes.MURMUR)
+                .setFilterSize(BloomFilter.getOptimalNumberOfBits(strings.length * 2, 0.01))
+                .build();
+        bloomFilter.addAll(strings);
+
+        long[] ids = new long[strings.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i * 31L;
+        }
+        bloomFilter.addAll(ids);
+
+        boolean[] results = new boolean[strings.length];
+        bloomFilter.checkAll(strings, results);
+        for (int i = 0; i < strings.length; i++) {
+            assertThat(results[i], is(true));
+            assertThat(bloomFilter.check(strings[i]), is(true));
+        }
+
+        bloomFilter.checkAll(ids, results);
+        for (boolean result : results) {
+            assertThat(result, is(true));
+        }
+
+        String[] missing = {"777", "waffsd"};
+        boolean[] missingResults = new boolean[missing.length];
+        bloomFilter.checkAll(missing, missingResults);
+        assertThat(missingResults[0], is(false));
+        assertThat(missingResults[1], is(false));
+    }
+
+    @Test
+    public void testPrimitiveKeys() throws Exception {
+        BloomFilter bloomFilter = new BloomFilter.Builder()
+                .setDoubleHashing(Hashes.MURMUR)
+                .setFilterSize(BloomFilter.getOptimalNumberOfBits(10_000, 0.01))
+                .build();
+
+        for (long id = 0; id < 10_000; id++) {
+            bloomFilter.addData(id * 31);
+        }
+        bloomFilter.addData("Anton".getBytes(StandardCharsets.UTF_8));
+
+        for (long id = 0; id < 10_000; id++) {
+            assertThat(bloomFilter.check(id * 31), is(true));
+        }
+        assertThat(bloomFilter.check("Anton".getBytes(StandardCharsets.UTF_8)), is(true));
+        assertThat(bloomFilter.check("Anton"), is(true));
+
+        boolean[] results = new boolean[1];
+        bloomFilter.checkAll(new long[]{31}, results);
+        assertThat(results[0], is(true));
+    }
+
+    @Test
+    public void testEstimation() throws Exception {
+        BloomFilter bloomFilter = new BloomFilter.Builder()
+                .setDoubleHashing(Hashes.MURMUR)
+                .setFilterSize(BloomFilter.getOptimalNumberOfBits(10_000, 0.01))
+                .setNumberOfHashes(7)
+                .build();
+        assertThat(bloomFilter.approximateElementCount(), is(0L));
+
+        for (long id = 0; id < 10_000; id++) {
+            bloomFilter.addData(id);
+        }
+
+        long count = bloomFilter.approximateElementCount();
+        LOG.info("Approximate count: {}, fill ratio: {}, expected fpp: {}",
+                count, bloomFilter.fillRatio(), bloomFilter.expectedFpp());
+        assertThat(Math.abs(count - 10_000) < 200, is(true));
+        assertThat(Math.abs(bloomFilter.fillRatio() - 0.5) < 0.02, is(true));
+        assertThat(Math.abs(bloomFilter.expectedFpp() - 0.01) < 0.002, is(true));
+
+        long bitCount = 0;
+        for (int i = 0; i < bloomFilter.getBitArray().numberOfWords(); i++) {
+            bitCount += Long.bitCount(bloomFilter.getBitArray().getWord(i));
+        }
+        assertThat(bloomFilter.getBitArray().bitCount(), is(bitCount));
+    }
+
+    @Test
+    public void testUnionAndIntersect() throws Exception {
+        BloomFilter.Builder builder = new BloomFilter.Builder()
+                .setDoubleHashing(Hashes.MURMUR)
+                .setFilterSize(BloomFilter.getOptimalNumberOfBits(30_000, 0.01));
+        List<BloomFilter> shards = Arrays.asList(builder.build(), builder.build(), builder.build());
+        for (long id = 0; id < 30_000; id++) {
+            shards.get((int) (id % shards.size())).addData(id);
+        }
+
+        BloomFilter merged = BloomFilter.merge(shards);
+        for (long id = 0; id < 30_000; id++) {
+            assertThat(merged.check(id), is(true));
+        }
+
+        BloomFilter union = builder.build();
+        union.union(shards.get(0));
+        union.union(shards.get(1));
+        union.addData(1L);
+        assertThat(union.check(2L), is(false));
+
+        union.intersect(shards.get(1));
+        assertThat(union.getBitArray().bitCount(), is(shards.get(1).getBitArray().bitCount()));
+        assertThat(union.check(1L), is(true));
+        assertThat(union.check(0L), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnionOfIncompatible() throws Exception {
+        BloomFilter bloomFilter = new BloomFilter.Builder().setDoubleHashing(Hashes.MURMUR).setFilterSize(1000).build();
+        bloomFilter.union(new BloomFilter.Builder().setDoubleHashing(Hashes.FNV1A32).setFilterSize(1000).build());
+    }
+
+    @Test
+    public void testBuildFrom() throws Exception {
+        List<String> strings = Files.lines(wordListPath, ENCODING)
+                .collect(Collectors.toList());
+        BloomFilter expected = new BloomFilter.Builder()
+                .setDoubleHashing(Hashes.MURMUR)
+                .setFilterData(strings)
+                .build();
+
+        BloomFilter fromPath = new BloomFilter.Builder()
+                .setDoubleHashing(Hashes.MURMUR)
+                .buildFrom(wordListPath, ENCODING);
+        BloomFilter fromStream = new BloomFilter.Builder()
+                .setDoubleHashing(Hashes.MURMUR)
+                .setExpectedNumberOfItems(strings.size())
+                .buildFrom(strings.parallelStream());
+        BloomFilter fromChannel;
+        try (FileChannel channel = FileChannel.open(wordListPath)) {
+            fromChannel = new BloomFilter.Builder()
+                    .setDoubleHashing(Hashes.MURMUR)
+                    .setExpectedNumberOfItems(strings.size())
+                    .buildFrom(channel, ENCODING);
+        }
+
+        for (BloomFilter bloomFilter : Arrays.asList(fromPath, fromStream, fromChannel)) {
+            assertThat(bloomFilter.size(), is(expected.size()));
+            for (int i = 0; i < expected.getBitArray().numberOfWords(); i++) {
+                assertThat(bloomFilter.getBitArray().getWord(i), is(expected.getBitArray().getWord(i)));
+            }
+        }
+    }
+
+    @Test
+    public void testBuildFromMapped() throws Exception {
+        List<String> strings = Files.lines(wordListPath, ENCODING)
+                .collect(Collectors.toList());
+
+        // Google functions hash strings in cp1251 like the file
+        BloomFilter bloomFilter = new BloomFilter.Builder()
+                .setDoubleHashing(Hashes.Google.MURMUR3_128)
+                .buildFromMapped(wordListPath);
+        BloomFilter expected = new BloomFilter.Builder()
+                .setDoubleHashing(Hashes.Google.MURMUR3_128)
+                .setFilterData(strings)
+                .build();
+
+        assertThat(bloomFilter.size(), is(expected.size()));
+        for (String string : strings) {
+            assertThat(bloomFilter.check(string), is(true));
+        }
+        for (int i = 0; i < expected.getBitArray().numberOfWords(); i++) {
+            assertThat(bloomFilter.getBitArray().getWord(i), is(expected.getBitArray().getWord(i)));
+        }
+
+        ByteBuffer lines = ByteBuffer.wrap("Anton\r\nsomething\n\nlast".getBytes(StandardCharsets.UTF_8));
+        BloomFilter murmur = new BloomFilter.Builder().setDoubleHashing(Hashes.MURMUR).setFilterSize(1000).build();
+        assertThat(murmur.addLines(lines), is(4L));
+        assertThat(murmur.check("Anton"), is(true));
+        assertThat(murmur.check("something"), is(true));
+        assertThat(murmur.check("last"), is(true));
+    }
+
+    @Test
+    public void testBuildFromEmptyFile() throws Exception {
+        Path empty = folder.newFile("empty.txt").toPath();
+
+        BloomFilter fromPath = new BloomFilter.Builder().buildFrom(empty, ENCODING);
+        BloomFilter fromMapped = new BloomFilter.Builder().setBlocked(true).buildFromMapped(empty);
+        BloomFilter ofSize = new BloomFilter.Builder().setFilterSize(1000).buildFromMapped(empty);
+
+        assertThat(fromPath.size(), is(BloomFilter.getOptimalNumberOfBits(1, 0.01)));
+        assertThat(fromMapped.size(), is((long) HashStrategies.BLOCK_SIZE));
+        assertThat(ofSize.size(), is(1000L));
+        for (BloomFilter bloomFilter : Arrays.asList(fromPath, fromMapped, ofSize)) {
+            assertThat(bloomFilter.fillRatio(), is(0.0));
+            assertThat(bloomFilter.check("Anton"), is(false));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBuildFromUnknownSize() throws Exception {
+        new BloomFilter.Builder().buildFrom(Stream.of("Anton"));
+    }
+
+    @Test
+    public void testParallelBuild() throws Exception {
+        List<String> strings = Files.lines(wordListPath, ENCODING)
+                .collect(Collectors.toList());
+
+        BloomFilter sequential = new BloomFilter.Builder()
+                .setDoubleHashing(Hashes.MURMUR)
+                .setFilterData(strings)
+                .build();
+        BloomFilter parallel = new BloomFilter.Builder()
+                .setDoubleHashing(Hashes.MURMUR)
+                .setFilterData(strings)
+                .setParallel(true)
+                .build();
+
+        assertThat(parallel.size(), is(sequential.size()));
+        for (int i = 0; i < sequential.getBitArray().numberOfWords(); i++) {
+            assertThat(parallel.getBitArray().getWord(i), is(sequential.getBitArray().getWord(i)));
+        }
+    }
+
     @Test
     public void testGetOptimal() throws Exception {
         int numberOfData = 216_553;
 
-        int numberOfBits = BloomFilter.getOptimalNumberOfBits(numberOfData, 0.01);
+        long numberOfBits = BloomFilter.getOptimalNumberOfBits(numberOfData, 0.01);
         LOG.info("Optimal number of bits: {}", numberOfBits);
-        assertThat(numberOfBits, equalTo(2075674));
+        assertThat(numberOfBits, equalTo(2075674L));
 
         int numberOfFunctions = BloomFilter.getOptimalNumberOfFunctions(numberOfBits, numberOfData);
         LOG.info("Optimal number of functions: {}", numberOfFunctions);
         assertThat(numberOfFunctions, equalTo(7));
     }
+
+    @Test
+    public void testGetOptimalBillion() throws Exception {
+        long numberOfBits = BloomFilter.getOptimalNumberOfBits(1_000_000_000L, 0.001);
+        LOG.info("Optimal number of bits for a billion: {}", numberOfBits);
+        assertThat(numberOfBits > Integer.MAX_VALUE, is(true));
+        assertThat(numberOfBits, equalTo(14377587567L));
+        assertThat(BloomFilter.getOptimalNumberOfFunctions(numberOfBits, 1_000_000_000L), equalTo(10));
+    }
+
+    /** 32-bit functions address 2^32 positions, so they are rejected before the bits are allocated */
+    @Test(expected = IllegalStateException.class)
+    public void testBigFilterOf32BitFunctions() throws Exception {
+        assertThat(Hashes.MURMUR.bits(), is(32));
+        assertThat(Hashes.Google.CRC32.bits(), is(32));
+        assertThat(Hashes.MD5.bits(), is(32));
+        assertThat(Hashes.Google.MD5.bits(), is(64));
+        assertThat(Hashes.Google.MURMUR3_128.bits(), is(64));
+        assertThat(Hashes.XXH64.bits(), is(64));
+
+        new BloomFilter.Builder()
+                .setFilterSize(3L << 30)
+                .build();
+    }
 }
@@ -0,0 +1,64 @@
+package com.eldest.bloomfilter;
+
+import com.eldest.bllomfilter.BloomFilter;
+import com.eldest.bllomfilter.ConcurrentBloomFilter;
+import com.eldest.bllomfilter.hash.Hashes;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+public class ConcurrentBloomFilterTest {
+    private final static Logger LOG = LoggerFactory.getLogger(ConcurrentBloomFilterTest.class);
+
+    private static final int THREADS = 4;
+    private static final int VALUES_PER_THREAD = 50_000;
+
+    @Test
+    public void testConcurrentAdd() throws Exception {
+        ConcurrentBloomFilter bloomFilter = new BloomFilter.Builder()
+                .setDoubleHashing(Hashes.MURMUR)
+                .setFilterSize(BloomFilter.getOptimalNumberOfBits(THREADS * VALUES_PER_THREAD, 0.01))
+                .buildConcurrent();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < VALUES_PER_THREAD; i++) {
+                        bloomFilter.addData(thread + ":" + i);
+                        bloomFilter.check("reader:" + i);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        for (int t = 0; t < THREADS; t++) {
+            for (int i = 0; i < VALUES_PER_THREAD; i++) {
+                assertThat(bloomFilter.check(t + ":" + i), is(true));
+            }
+        }
+
+        long insertions = bloomFilter.getApproximateInsertions();
+        LOG.info("Approximate insertions: {}", insertions);
+        assertThat(insertions, lessThanOrEqualTo((long) THREADS * VALUES_PER_THREAD));
+        assertThat(insertions, greaterThan((long) THREADS * VALUES_PER_THREAD * 9 / 10));
+    }
+}
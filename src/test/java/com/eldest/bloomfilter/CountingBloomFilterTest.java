@@ -0,0 +1,68 @@
+package com.eldest.bloomfilter;
+
+import com.eldest.bllomfilter.BloomFilter;
+import com.eldest.bllomfilter.CountingBloomFilter;
+import com.eldest.bllomfilter.bits.CounterArray;
+import com.eldest.bllomfilter.hash.Hashes;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class CountingBloomFilterTest {
+
+    private static final int NUMBER_OF_VALUES = 10_000;
+
+    @Test
+    public void testRemove() throws Exception {
+        CountingBloomFilter bloomFilter = new BloomFilter.Builder()
+                .setDoubleHashing(Hashes.MURMUR)
+                .setFilterSize(BloomFilter.getOptimalNumberOfBits(NUMBER_OF_VALUES, 0.001))
+                .setNumberOfHashes(10)
+                .buildCounting();
+
+        int notAdded = 0;
+        for (int i = 0; i < NUMBER_OF_VALUES; i++) {
+            if (!bloomFilter.addData("value" + i)) {
+                notAdded++;
+            }
+        }
+        // a new value may hit counters of the others, it is a false positive on insert
+        assertThat(notAdded < NUMBER_OF_VALUES / 1000, is(true));
+        for (int i = 0; i < NUMBER_OF_VALUES; i += 2) {
+            assertThat(bloomFilter.remove("value" + i), is(true));
+        }
+
+        int removedFound = 0;
+        for (int i = 0; i < NUMBER_OF_VALUES; i++) {
+            boolean found = bloomFilter.check("value" + i);
+            if (i % 2 == 1) {
+                assertThat(found, is(true));
+            } else if (found) {
+                removedFound++;
+            }
+        }
+        assertThat(removedFound < NUMBER_OF_VALUES / 100, is(true));
+        assertThat(bloomFilter.remove("missing"), is(false));
+    }
+
+    @Test
+    public void testSaturation() throws Exception {
+        CounterArray counterArray = new CounterArray(33);
+        for (int i = 0; i < 20; i++) {
+            counterArray.increment(17);
+        }
+        counterArray.increment(16);
+
+        assertThat(counterArray.get(17), is(CounterArray.MAX_VALUE));
+        assertThat(counterArray.decrement(17), is(CounterArray.MAX_VALUE));
+        assertThat(counterArray.get(17), is(CounterArray.MAX_VALUE));
+        assertThat(counterArray.get(16), is(1));
+        assertThat(counterArray.get(18), is(0));
+
+        counterArray.decrement(16);
+        counterArray.decrement(16);
+        assertThat(counterArray.get(16), is(0));
+        assertThat(counterArray.get(17), is(CounterArray.MAX_VALUE));
+    }
+}
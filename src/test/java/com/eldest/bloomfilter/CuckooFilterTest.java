@@ -0,0 +1,85 @@
+package com.eldest.bloomfilter;
+
+import com.eldest.bllomfilter.CuckooFilter;
+import com.eldest.bllomfilter.hash.Hashes;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+public class CuckooFilterTest {
+    private final static Logger LOG = LoggerFactory.getLogger(CuckooFilterTest.class);
+
+    private static final int NUMBER_OF_VALUES = 100_000;
+    private static final int NUMBER_OF_CHECKS = 200_000;
+
+    private static void testFilter(CuckooFilter cuckooFilter, double falsePositiveRate) {
+        for (int i = 0; i < NUMBER_OF_VALUES; i++) {
+            assertThat(cuckooFilter.addData("value" + i), is(true));
+        }
+        LOG.info("CuckooFilter: {}", cuckooFilter);
+
+        for (int i = 0; i < NUMBER_OF_VALUES; i++) {
+            assertThat(cuckooFilter.check("value" + i), is(true));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < NUMBER_OF_CHECKS; i++) {
+            if (cuckooFilter.check("missing" + i)) {
+                falsePositives++;
+            }
+        }
+        LOG.info("CuckooFilter false positives: {}", falsePositives);
+        assertThat(falsePositives, lessThan((int) (NUMBER_OF_CHECKS * falsePositiveRate)));
+
+        for (int i = 0; i < NUMBER_OF_VALUES; i += 2) {
+            assertThat(cuckooFilter.remove("value" + i), is(true));
+        }
+        for (int i = 1; i < NUMBER_OF_VALUES; i += 2) {
+            assertThat(cuckooFilter.check("value" + i), is(true));
+        }
+        assertThat(cuckooFilter.count(), is((long) NUMBER_OF_VALUES / 2));
+    }
+
+    @Test
+    public void testDefault() throws Exception {
+        testFilter(new CuckooFilter.Builder()
+                .setCapacity(NUMBER_OF_VALUES)
+                .setFalsePositiveRate(0.001)
+                .build(), 0.001);
+    }
+
+    @Test
+    public void testMurmur() throws Exception {
+        testFilter(new CuckooFilter.Builder()
+                .setHashFunction(Hashes.MURMUR)
+                .setCapacity(NUMBER_OF_VALUES)
+                .setFalsePositiveRate(0.001)
+                .build(), 0.001);
+    }
+
+    @Test
+    public void testFNV() throws Exception {
+        testFilter(new CuckooFilter.Builder()
+                .setHashFunction(Hashes.FNV1A64)
+                .setCapacity(NUMBER_OF_VALUES)
+                .setFalsePositiveRate(0.01)
+                .build(), 0.01);
+    }
+
+    @Test
+    public void testFull() throws Exception {
+        CuckooFilter cuckooFilter = new CuckooFilter.Builder().setCapacity(100).build();
+        int added = 0;
+        while (cuckooFilter.addData("value" + added)) {
+            added++;
+        }
+        LOG.info("Full CuckooFilter: {}", cuckooFilter);
+        for (int i = 0; i < added; i++) {
+            assertThat(cuckooFilter.check("value" + i), is(true));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.eldest.bloomfilter;
+
+import com.eldest.bllomfilter.BloomFilter;
+import com.eldest.bllomfilter.MappedBloomFilter;
+import com.eldest.bllomfilter.ReadableBloomFilter;
+import com.eldest.bllomfilter.hash.Hashes;
+import com.eldest.bllomfilter.serialization.Serializations;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class MappedBloomFilterTest {
+
+    private static final int NUMBER_OF_VALUES = 10_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testOpen() throws Exception {
+        BloomFilter bloomFilter = new BloomFilter.Builder()
+                .setDoubleHashing(Hashes.MURMUR)
+                .setFilterSize(BloomFilter.getOptimalNumberOfBits(NUMBER_OF_VALUES, 0.01))
+                .build();
+        for (int i = 0; i < NUMBER_OF_VALUES; i++) {
+            bloomFilter.addData("value" + i);
+        }
+
+        Path path = folder.newFile("filter.bin").toPath();
+        try (OutputStream outputStream = Files.newOutputStream(path)) {
+            Serializations.writeTo(bloomFilter, outputStream);
+        }
+
+        MappedBloomFilter mappedBloomFilter = MappedBloomFilter.open(path);
+        assertThat(mappedBloomFilter.size(), is(bloomFilter.size()));
+        for (int i = 0; i < NUMBER_OF_VALUES * 2; i++) {
+            assertThat(mappedBloomFilter.check("value" + i), is(bloomFilter.check("value" + i)));
+        }
+    }
+
+    @Test
+    public void testReadOnly() throws Exception {
+        BloomFilter bloomFilter = new BloomFilter.Builder().setFilterSize(1000).build();
+        bloomFilter.addData("value");
+
+        Path path = folder.newFile("filter.bin").toPath();
+        try (OutputStream outputStream = Files.newOutputStream(path)) {
+            Serializations.writeTo(bloomFilter, outputStream);
+        }
+
+        ReadableBloomFilter mappedBloomFilter = MappedBloomFilter.open(path);
+        assertThat(mappedBloomFilter instanceof BloomFilter, is(false));
+        assertThat(mappedBloomFilter.check("value"), is(true));
+        assertThat(mappedBloomFilter.fillRatio(), is(bloomFilter.fillRatio()));
+    }
+}
@@ -0,0 +1,110 @@
+package com.eldest.bloomfilter;
+
+import com.eldest.bllomfilter.BloomFilter;
+import com.eldest.bllomfilter.ConcurrentBloomFilter;
+import com.eldest.bllomfilter.MeteredBloomFilter;
+import com.eldest.bllomfilter.hash.Hashes;
+import com.eldest.bllomfilter.metrics.BloomFilterStats;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class MeteredBloomFilterTest {
+    private final static Logger LOG = LoggerFactory.getLogger(MeteredBloomFilterTest.class);
+
+    private static final int NUMBER_OF_VALUES = 10_000;
+
+    @Test
+    public void testStats() throws Exception {
+        BloomFilter bloomFilter = new BloomFilter.Builder()
+                .setDoubleHashing(Hashes.MURMUR)
+                .setFilterSize(BloomFilter.getOptimalNumberOfBits(NUMBER_OF_VALUES, 0.01))
+                .build();
+        BloomFilterStats stats = new BloomFilterStats();
+        MeteredBloomFilter metered = new MeteredBloomFilter(bloomFilter, stats);
+
+        for (long id = 0; id < NUMBER_OF_VALUES; id++) {
+            metered.addData(id);
+        }
+        for (long id = 0; id < NUMBER_OF_VALUES * 2; id++) {
+            metered.check(id);
+        }
+        LOG.info("Stats: {}, hash time: {}", stats, stats.getAverageHashNanos());
+
+        assertThat(bloomFilter.check(1L), is(true));
+        assertThat(stats.getAdds(), is((long) NUMBER_OF_VALUES));
+        assertThat(stats.getChecks(), is(NUMBER_OF_VALUES * 2L));
+        assertThat(stats.getPositives() >= NUMBER_OF_VALUES, is(true));
+        assertThat(stats.getPositiveRate() < 0.52, is(true));
+        assertThat(stats.getFillRatio(), is(bloomFilter.fillRatio()));
+        assertThat(stats.getAverageHashNanos().containsKey(Hashes.MURMUR.getName()), is(true));
+    }
+
+    @Test
+    public void testBufferHashSampled() throws Exception {
+        BloomFilter bloomFilter = new BloomFilter.Builder()
+                .setHashFunctions(ImmutableSet.of(Hashes.MURMUR, Hashes.FNV1A32))
+                .setFilterSize(BloomFilter.getOptimalNumberOfBits(NUMBER_OF_VALUES, 0.01))
+                .build();
+        BloomFilterStats stats = new BloomFilterStats();
+        MeteredBloomFilter metered = new MeteredBloomFilter(bloomFilter, stats);
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(Long.BYTES);
+        for (long id = 0; id < NUMBER_OF_VALUES * 2; id++) {
+            buffer.putLong(0, id);
+            metered.check(buffer, 0, Long.BYTES);
+        }
+
+        assertThat(stats.getChecks(), is(NUMBER_OF_VALUES * 2L));
+        assertThat(stats.getAverageHashNanos().containsKey(Hashes.MURMUR.getName()), is(true));
+        assertThat(stats.getAverageHashNanos().containsKey(Hashes.FNV1A32.getName()), is(true));
+    }
+
+    @Test
+    public void testDelegates() throws Exception {
+        ConcurrentBloomFilter bloomFilter = new BloomFilter.Builder()
+                .setDoubleHashing(Hashes.MURMUR)
+                .setFilterSize(BloomFilter.getOptimalNumberOfBits(NUMBER_OF_VALUES, 0.01))
+                .buildConcurrent();
+        BloomFilterStats stats = new BloomFilterStats();
+        MeteredBloomFilter metered = new MeteredBloomFilter(bloomFilter, stats);
+
+        for (long id = 0; id < NUMBER_OF_VALUES; id++) {
+            metered.addData(id);
+        }
+        for (long id = 0; id < NUMBER_OF_VALUES; id++) {
+            assertThat(metered.check(id), is(true));
+        }
+
+        assertThat(bloomFilter.getApproximateInsertions(), is(stats.getChangingAdds()));
+        assertThat(bloomFilter.getApproximateInsertions() > NUMBER_OF_VALUES * 0.99, is(true));
+        assertThat(stats.getPositives(), is((long) NUMBER_OF_VALUES));
+    }
+
+    @Test
+    public void testJmx() throws Exception {
+        BloomFilterStats stats = new BloomFilterStats();
+        MeteredBloomFilter metered = new MeteredBloomFilter(
+                new BloomFilter.Builder().setDoubleHashing(Hashes.MURMUR).setFilterSize(1000).build(), stats);
+        metered.addData("Anton");
+        metered.check("Anton");
+
+        ObjectName objectName = stats.register("test");
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            assertThat(mBeanServer.getAttribute(objectName, "Checks"), is((Object) 1L));
+            assertThat(mBeanServer.getAttribute(objectName, "Positives"), is((Object) 1L));
+        } finally {
+            BloomFilterStats.unregister("test");
+        }
+    }
+}
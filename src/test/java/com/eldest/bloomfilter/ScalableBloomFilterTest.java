@@ -0,0 +1,47 @@
+package com.eldest.bloomfilter;
+
+import com.eldest.bllomfilter.ScalableBloomFilter;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+public class ScalableBloomFilterTest {
+    private final static Logger LOG = LoggerFactory.getLogger(ScalableBloomFilterTest.class);
+
+    private static final int NUMBER_OF_VALUES = 200_000;
+    private static final int NUMBER_OF_CHECKS = 200_000;
+
+    @Test
+    public void testGrowth() throws Exception {
+        ScalableBloomFilter bloomFilter = new ScalableBloomFilter.Builder()
+                .setInitialCapacity(1000)
+                .setFalsePositiveRate(0.01)
+                .build();
+
+        for (int i = 0; i < NUMBER_OF_VALUES; i++) {
+            bloomFilter.addData("value" + i);
+        }
+        LOG.info("ScalableBloomFilter: {}, false positive rate bound: {}",
+                bloomFilter, bloomFilter.getFalsePositiveRate());
+
+        assertThat(bloomFilter.getNumberOfSlices(), greaterThan(1));
+        assertThat(bloomFilter.getFalsePositiveRate(), lessThan(0.01));
+        for (int i = 0; i < NUMBER_OF_VALUES; i++) {
+            assertThat(bloomFilter.check("value" + i), is(true));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < NUMBER_OF_CHECKS; i++) {
+            if (bloomFilter.check("missing" + i)) {
+                falsePositives++;
+            }
+        }
+        LOG.info("ScalableBloomFilter false positives: {}", falsePositives);
+        assertThat(falsePositives, lessThan(NUMBER_OF_CHECKS / 100));
+    }
+}
@@ -0,0 +1,46 @@
+package com.eldest.bloomfilter.bits;
+
+import com.eldest.bllomfilter.bits.BitArray;
+import com.eldest.bllomfilter.bits.LongBitArray;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class BitArrayTest {
+
+    @Test
+    public void testSetAndGet() throws Exception {
+        BitArray bitArray = new LongBitArray(130);
+        assertThat(bitArray.bitSize(), is(130L));
+
+        assertThat(bitArray.set(0), is(true));
+        assertThat(bitArray.set(63), is(true));
+        assertThat(bitArray.set(64), is(true));
+        assertThat(bitArray.set(129), is(true));
+        assertThat(bitArray.set(64), is(false));
+
+        assertThat(bitArray.get(0), is(true));
+        assertThat(bitArray.get(1), is(false));
+        assertThat(bitArray.get(63), is(true));
+        assertThat(bitArray.get(64), is(true));
+        assertThat(bitArray.get(65), is(false));
+        assertThat(bitArray.get(129), is(true));
+    }
+
+    @Test
+    public void testLongSize() throws Exception {
+        assertThat(LongBitArray.numberOfWords(10_000_000_000L), is(156_250_000));
+
+        BitArray bitArray = new LongBitArray(1000);
+        bitArray.set(999);
+        LongBitArray copy = LongBitArray.copyOf(bitArray);
+        assertThat(copy.get(999L), is(true));
+        assertThat(copy.numberOfWords(), is(16));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooBig() throws Exception {
+        LongBitArray.numberOfWords(1L << 40);
+    }
+}
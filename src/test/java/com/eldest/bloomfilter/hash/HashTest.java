@@ -2,6 +2,16 @@ package com.eldest.bloomfilter.hash;
 
 import com.eldest.bllomfilter.hash.HashFunction;
 import com.eldest.bllomfilter.hash.Hashes;
+import com.eldest.bllomfilter.hash.implementation.FNV1;
+import com.eldest.bllomfilter.hash.implementation.FNV164;
+import com.eldest.bllomfilter.hash.implementation.FNV132;
+import com.eldest.bllomfilter.hash.implementation.FNV1a32;
+import com.eldest.bllomfilter.hash.implementation.FNV1a64;
+import com.eldest.bllomfilter.hash.implementation.MurmurHash;
+import com.eldest.bllomfilter.hash.implementation.WyHash;
+import com.eldest.bllomfilter.hash.implementation.XxHash64;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -9,7 +19,21 @@ import org.junit.rules.TestName;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
 
 public class HashTest {
     private final static Logger LOG = LoggerFactory.getLogger(HashTest.class);
@@ -19,9 +43,81 @@ public class HashTest {
 
     private static final String[] INPUT = {"Anton", "12345", "TEST", "something", "123", "777", "012"};
     private static final int FILTER_SIZE = 15;
+    private static final String[] UNICODE_INPUT = {"", "a", "ab", "abc", "Антон", "日本語", "\uD83D\uDE00!", "\uD800x"};
 
     //--------------------------------- support ---------------------------------
 
+    /** Byte at a time MurmurHash2 as it was before the word reads */
+    private static int referenceMurmur(byte[] data, int offset, int length, int seed) {
+        int m = 0x5bd1e995;
+        int h = seed ^ length;
+        int len_4 = length >> 2;
+        for (int i = 0; i < len_4; i++) {
+            int i_4 = offset + (i << 2);
+            int k = data[i_4 + 3];
+            k = (k << 8) | (data[i_4 + 2] & 0xff);
+            k = (k << 8) | (data[i_4 + 1] & 0xff);
+            k = (k << 8) | (data[i_4] & 0xff);
+            k *= m;
+            k ^= k >>> 24;
+            k *= m;
+            h *= m;
+            h ^= k;
+        }
+        int left = length - (len_4 << 2);
+        int end = offset + length;
+        if (left != 0) {
+            if (left >= 3) {
+                h ^= (int) data[end - 3] << 16;
+            }
+            if (left >= 2) {
+                h ^= (int) data[end - 2] << 8;
+            }
+            h ^= (int) data[end - 1];
+            h *= m;
+        }
+        h ^= h >>> 13;
+        h *= m;
+        h ^= h >>> 15;
+        return h;
+    }
+
+    /** Shift and add FNV loops as they were before unrolling, 32-bit results are masked */
+    private static long referenceFnv(byte[] buf, int offset, int len, boolean fnv1a, boolean is64) {
+        long seed = is64 ? FNV1.FNV1_64_INIT : FNV1.FNV1_32_INIT;
+        for (int i = offset; i < offset + len; i++) {
+            if (fnv1a) {
+                seed ^= buf[i];
+            }
+            seed += is64
+                    ? (seed << 1) + (seed << 4) + (seed << 5) + (seed << 7) + (seed << 8) + (seed << 40)
+                    : (seed << 1) + (seed << 4) + (seed << 7) + (seed << 8) + (seed << 24);
+            if (!fnv1a) {
+                seed ^= buf[i];
+            }
+        }
+        return is64 ? seed : seed & 0xffffffffL;
+    }
+
+    /** Every length up to a few blocks, in a big-endian heap buffer and as a string */
+    private static void testLongInput(HashFunction hashFunction) {
+        Random random = new Random(1);
+        for (int length = 0; length < 200; length++) {
+            StringBuilder item = new StringBuilder();
+            for (int i = 0; i < length; i++) {
+                item.append((char) ('a' + random.nextInt(26)));
+            }
+            byte[] bytes = item.toString().getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 1);
+            buffer.position(1);
+            buffer.put(bytes);
+
+            long expected = hashFunction.hash64(bytes, 0, bytes.length);
+            assertThat(hashFunction.hash64(item.toString()), is(expected));
+            assertThat(hashFunction.hash64(buffer, 1, bytes.length), is(expected));
+        }
+    }
+
     private static void testHash(final HashFunction hashFunction) {
         for (String item : Arrays.asList(INPUT)) {
             long hash = hashFunction.hash(item);
@@ -31,6 +127,17 @@ public class HashTest {
         }
     }
 
+    private static void testAllocationFreeFnv(HashFunction hashFunction, FNV1 fnv) {
+        for (String item : UNICODE_INPUT) {
+            fnv.init(item);
+            byte[] bytes = item.getBytes(StandardCharsets.UTF_8);
+
+            assertThat(hashFunction.hash(item), is((int) fnv.getHash()));
+            assertThat(hashFunction.hash(new StringBuilder(item)), is((int) fnv.getHash()));
+            assertThat(hashFunction.hash(bytes, 0, bytes.length), is((int) fnv.getHash()));
+        }
+    }
+
     //--------------------------------- tests ---------------------------------
 
 
@@ -44,6 +151,93 @@ public class HashTest {
         testHash(Hashes.MURMUR);
     }
 
+    @Test
+    public void testMurmurAllocationFree() throws Exception {
+        for (String item : UNICODE_INPUT) {
+            byte[] bytes = item.getBytes(StandardCharsets.UTF_8);
+            byte[] padded = ("xy" + item + "z").getBytes(StandardCharsets.UTF_8);
+            int expected = MurmurHash.hash(bytes, 1);
+
+            assertThat(Hashes.MURMUR.hash(item), is(expected));
+            assertThat(Hashes.MURMUR.hash(new StringBuilder(item)), is(expected));
+            assertThat(Hashes.MURMUR.hash(padded, 2, bytes.length), is(expected));
+        }
+    }
+
+    /** Strings are hashed as UTF-8 on any platform, earlier versions took the platform charset */
+    @Test
+    public void testMurmurPinned() throws Exception {
+        assertThat(Hashes.MURMUR.hash("Anton"), is(-493288240));
+        assertThat(Hashes.MURMUR.hash("Антон"), is(-1165106208));
+        assertThat(MurmurHash.hash("Антон".getBytes(StandardCharsets.UTF_8), 1), is(-1165106208));
+        assertThat(MurmurHash.hash("Антон".getBytes(Charset.forName("cp1251")), 1), is(-109207510));
+    }
+
+    @Test
+    public void testFNVAllocationFree() throws Exception {
+        testAllocationFreeFnv(Hashes.FNV1A32, new FNV1a32());
+        testAllocationFreeFnv(Hashes.FNV_164, new FNV164());
+    }
+
+    @Test
+    public void testHashLong() throws Exception {
+        HashFunction[] hashFunctions = {Hashes.MURMUR, Hashes.FNV1A32, Hashes.FNV_164, Hashes.XXH64, Hashes.WYHASH,
+                Hashes.MD5, Hashes.Google.MURMUR3_32, Hashes.Google.MURMUR3_128, Hashes.Google.SIPHASH24};
+        long[] values = {0, 1, -1, 777, Long.MIN_VALUE, 0x0123456789abcdefL};
+
+        for (HashFunction hashFunction : hashFunctions) {
+            for (long value : values) {
+                byte[] bytes = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(value).array();
+
+                assertThat(hashFunction.hashLong(value), is(hashFunction.hashBytes(bytes)));
+                assertThat(hashFunction.hash64(value), is(hashFunction.hash64(bytes, 0, bytes.length)));
+                assertThat(hashFunction.index(value, FILTER_SIZE), is(hashFunction.index(bytes, 0, bytes.length, FILTER_SIZE)));
+            }
+        }
+    }
+
+    @Test
+    public void testHashByteBuffer() throws Exception {
+        HashFunction[] hashFunctions = {Hashes.MURMUR, Hashes.FNV1A32, Hashes.FNV_164, Hashes.XXH64, Hashes.WYHASH,
+                Hashes.MD5, Hashes.Google.MURMUR3_32, Hashes.Google.MURMUR3_128};
+
+        for (HashFunction hashFunction : hashFunctions) {
+            for (String item : UNICODE_INPUT) {
+                byte[] bytes = item.getBytes(StandardCharsets.UTF_8);
+                ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length + 3);
+                buffer.position(2);
+                buffer.put(bytes);
+
+                assertThat(hashFunction.hash(buffer, 2, bytes.length), is(hashFunction.hashBytes(bytes)));
+                assertThat(hashFunction.hash64(buffer, 2, bytes.length), is(hashFunction.hash64(bytes, 0, bytes.length)));
+            }
+        }
+    }
+
+    @Test
+    public void testReduce() throws Exception {
+        int[] hashes = {0, 1, -1, 777, Integer.MIN_VALUE, Integer.MAX_VALUE};
+        for (int hash : hashes) {
+            for (int size : new int[]{1, FILTER_SIZE, Integer.MAX_VALUE}) {
+                int index = HashFunction.reduce(hash, size);
+                assertThat(index >= 0 && index < size, is(true));
+            }
+        }
+
+        Random random = new Random(1);
+        BigInteger mask = BigInteger.ONE.shiftLeft(Long.SIZE).subtract(BigInteger.ONE);
+        for (int i = 0; i < 1000; i++) {
+            long hash64 = random.nextLong();
+            long size = (random.nextLong() >>> 1) | (1L << 40);
+            long expected = BigInteger.valueOf(hash64).and(mask)
+                    .multiply(BigInteger.valueOf(size))
+                    .shiftRight(Long.SIZE)
+                    .longValue();
+
+            assertThat(HashFunction.reduce(hash64, size), is(expected));
+        }
+    }
+
     @Test
     public void testFNV1a32() throws Exception {
         testHash(Hashes.FNV1A32);
@@ -64,6 +258,59 @@ public class HashTest {
         testHash(Hashes.FNV_164);
     }
 
+    @Test
+    public void testWordLoopsCompatible() throws Exception {
+        FNV1[] fnvs = {new FNV132(), new FNV1a32(), new FNV164(), new FNV1a64()};
+        Random random = new Random(1);
+        for (int length = 0; length < 100; length++) {
+            byte[] bytes = new byte[length + 3];
+            random.nextBytes(bytes);
+            ByteBuffer big = ByteBuffer.allocateDirect(bytes.length);
+            big.put(bytes);
+            ByteBuffer little = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+
+            int expected = referenceMurmur(bytes, 3, length, 1);
+            assertThat(MurmurHash.hash(bytes, 3, length, 1), is(expected));
+            assertThat(MurmurHash.hash(big, 3, length, 1), is(expected));
+            assertThat(MurmurHash.hash(little, 3, length, 1), is(expected));
+
+            for (int f = 0; f < fnvs.length; f++) {
+                long expectedFnv = referenceFnv(bytes, 3, length, (f & 1) == 1, f >= 2);
+                assertThat(fnvs[f].hash(bytes, 3, length), is(expectedFnv));
+                assertThat(fnvs[f].hash(big, 3, length), is(expectedFnv));
+                assertThat(fnvs[f].hash(little, 3, length), is(expectedFnv));
+            }
+        }
+    }
+
+    @Test
+    public void testXXH64() throws Exception {
+        testHash(Hashes.XXH64);
+
+        String[] input = {"", "a", "abc", "Nobody inspects the spammish repetition"};
+        long[] expected = {0xef46db3751d8e999L, 0xd24ec4f1a98c6e5bL, 0x44bc2cf5ad770999L, 0xfbcea83c8a378bf1L};
+        for (int i = 0; i < input.length; i++) {
+            assertThat(new XxHash64().hash(input[i], 0), is(expected[i]));
+        }
+        testLongInput(Hashes.XXH64);
+    }
+
+    @Test
+    public void testWYHASH() throws Exception {
+        testHash(Hashes.WYHASH);
+
+        // reference test vectors, seed is the index
+        String[] input = {"", "a", "abc", "message digest", "abcdefghijklmnopqrstuvwxyz",
+                "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789",
+                "12345678901234567890123456789012345678901234567890123456789012345678901234567890"};
+        long[] expected = {0x0409638ee2bde459L, 0xa8412d091b5fe0a9L, 0x32dd92e4b2915153L, 0x8619124089a3a16bL,
+                0x7a43afb61d7f5f40L, 0xff42329b90e50d58L, 0xc39cab13b115aad3L};
+        for (int i = 0; i < input.length; i++) {
+            assertThat(new WyHash().hash(input[i], i), is(expected[i]));
+        }
+        testLongInput(Hashes.WYHASH);
+    }
+
     @Test
     public void testMD5() throws Exception {
         testHash(Hashes.MD5);
@@ -104,6 +351,67 @@ public class HashTest {
         testHash(Hashes.Google.SHA256);
     }
 
+    @Test
+    public void testSecuredMatchesGuava() throws Exception {
+        Charset encoding = Charset.forName("cp1251");
+        for (String item : INPUT) {
+            byte[] bytes = item.getBytes(encoding);
+            HashCode md5 = Hashing.md5().hashBytes(bytes);
+            assertThat(Hashes.Google.MD5.hash(item), is(md5.asInt()));
+            assertThat(Hashes.Google.MD5.hash64(item), is(md5.asLong()));
+            assertThat(Hashes.MD5.hash(item), is(md5.asInt()));
+            assertThat(Hashes.Google.SHA512.hash64(item), is(Hashing.sha512().hashBytes(bytes).asLong()));
+            assertThat(Hashes.Google.SHA256.hashLong(item.length()),
+                    is(Hashing.sha256().hashLong(item.length()).asInt()));
+            assertThat(Hashes.Google.SHA256.hash64((long) item.length()),
+                    is(Hashing.sha256().hashLong(item.length()).asLong()));
+        }
+    }
+
+    /** hash64 of MD5, SHA-1 and SHA-256 is persisted in filter bits, so it must never change */
+    @Test
+    public void testSecuredHash64Pinned() throws Exception {
+        HashFunction[] hashFunctions = {Hashes.MD5, Hashes.SHA_1, Hashes.SHA_256};
+        long[][] expected = {
+                {0xb8ce40d2e7e22deaL, 0xa25ee39ff9b27b9fL, 0x112345951ffd02a3L},
+                {0x712fe720f2e08a43L, 0xabc23fc6f6841b14L, 0xfb370dc6cd50a730L},
+                {0x551ade4aff2f2c36L, 0x6aed4f2cad4e5ff3L, 0x97bf31802f1454f5L}};
+        for (int i = 0; i < hashFunctions.length; i++) {
+            assertThat(hashFunctions[i].hash64("Anton"), is(expected[i][0]));
+            assertThat(hashFunctions[i].hash64(777L), is(expected[i][1]));
+            assertThat(hashFunctions[i].hash64(new byte[]{1, 2, 3}, 0, 3), is(expected[i][2]));
+        }
+    }
+
+    @Test
+    public void testSecuredConcurrent() throws Exception {
+        final long[] expected = new long[INPUT.length];
+        for (int i = 0; i < INPUT.length; i++) {
+            expected[i] = Hashes.SHA_256.hash64(INPUT[i]);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int n = 0; n < 1000; n++) {
+                        int i = n % INPUT.length;
+                        if (Hashes.SHA_256.hash64(INPUT[i]) != expected[i]) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertThat(future.get(), is(true));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     @Test
     public void testGoogleSIPHASH24() throws Exception {
         testHash(Hashes.Google.SIPHASH24);
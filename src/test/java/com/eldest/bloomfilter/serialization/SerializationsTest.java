@@ -0,0 +1,148 @@
+package com.eldest.bloomfilter.serialization;
+
+import com.eldest.bllomfilter.BinaryFuseFilter;
+import com.eldest.bllomfilter.BloomFilter;
+import com.eldest.bllomfilter.hash.Hashes;
+import com.eldest.bllomfilter.serialization.SerializationException;
+import com.eldest.bllomfilter.serialization.Serializations;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class SerializationsTest {
+
+    private static final int NUMBER_OF_VALUES = 10_000;
+
+    //--------------------------------- support ---------------------------------
+
+    private static void testWriteRead(BloomFilter bloomFilter) {
+        for (int i = 0; i < NUMBER_OF_VALUES; i++) {
+            bloomFilter.addData("value" + i);
+        }
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Serializations.writeTo(bloomFilter, outputStream);
+        BloomFilter restored = Serializations.readFrom(new ByteArrayInputStream(outputStream.toByteArray()));
+
+        assertThat(restored.size(), is(bloomFilter.size()));
+        assertThat(restored.getHashStrategy().getName(), is(bloomFilter.getHashStrategy().getName()));
+        assertThat(restored.getHashFunctions(), equalTo(bloomFilter.getHashFunctions()));
+        for (int i = 0; i < bloomFilter.getBitArray().numberOfWords(); i++) {
+            assertThat(restored.getBitArray().getWord(i), is(bloomFilter.getBitArray().getWord(i)));
+        }
+        for (int i = 0; i < NUMBER_OF_VALUES * 2; i++) {
+            assertThat(restored.check("value" + i), is(bloomFilter.check("value" + i)));
+        }
+    }
+
+    //--------------------------------- tests ---------------------------------
+
+    @Test
+    public void testFunctions() throws Exception {
+        testWriteRead(new BloomFilter.Builder()
+                .setHashFunctions(ImmutableSet.of(Hashes.MURMUR, Hashes.FNV1A32, Hashes.Google.CRC32))
+                .setFilterSize(100_003)
+                .build());
+    }
+
+    @Test
+    public void testDoubleHashing() throws Exception {
+        testWriteRead(new BloomFilter.Builder()
+                .setDoubleHashing(Hashes.Google.MURMUR3_128)
+                .setFilterSize(100_003)
+                .build());
+    }
+
+    @Test
+    public void testBlocked() throws Exception {
+        testWriteRead(new BloomFilter.Builder()
+                .setBlocked(true)
+                .setFilterSize(100_003)
+                .build());
+    }
+
+    @Test(expected = SerializationException.class)
+    public void testWrongMagic() throws Exception {
+        Serializations.readFrom(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6}));
+    }
+
+    @Test
+    public void testCorruptHeader() throws Exception {
+        BloomFilter bloomFilter = new BloomFilter.Builder()
+                .setBlocked(true)
+                .setFilterSize(1024)
+                .build();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Serializations.writeTo(bloomFilter, outputStream);
+        byte[] data = outputStream.toByteArray();
+        // number of bits goes right before the words
+        int bitSizePosition = data.length - bloomFilter.getBitArray().numberOfWords() * Long.BYTES - Long.BYTES;
+
+        byte[] hugeSize = data.clone();
+        ByteBuffer.wrap(hugeSize).order(ByteOrder.LITTLE_ENDIAN).putLong(bitSizePosition, (long) Integer.MAX_VALUE * Long.SIZE);
+        assertCorruptBloomFilter(hugeSize);
+
+        byte[] truncated = Arrays.copyOf(data, data.length - 1);
+        assertCorruptBloomFilter(truncated);
+
+        byte[] partialBlock = data.clone();
+        ByteBuffer.wrap(partialBlock).order(ByteOrder.LITTLE_ENDIAN).putLong(bitSizePosition, 1000);
+        assertCorruptBloomFilter(partialBlock);
+    }
+
+    @Test
+    public void testCorruptBinaryFuseFilter() throws Exception {
+        BinaryFuseFilter filter = new BinaryFuseFilter.Builder()
+                .setFilterData(Arrays.asList("a", "b", "c"))
+                .build();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Serializations.writeTo(filter, outputStream);
+        byte[] data = outputStream.toByteArray();
+        // header ends with the fingerprint bits byte and the number of fingerprint bytes
+        int lengthPosition = data.length - filter.getFingerprints().length - Integer.BYTES;
+
+        byte[] negativeLength = data.clone();
+        ByteBuffer.wrap(negativeLength).order(ByteOrder.LITTLE_ENDIAN).putInt(lengthPosition, -1);
+        assertCorrupt(negativeLength);
+
+        byte[] wrongLength = data.clone();
+        ByteBuffer.wrap(wrongLength).order(ByteOrder.LITTLE_ENDIAN).putInt(lengthPosition, Integer.MAX_VALUE);
+        assertCorrupt(wrongLength);
+
+        byte[] wrongBits = data.clone();
+        wrongBits[lengthPosition - 1] = 7;
+        assertCorrupt(wrongBits);
+
+        byte[] wrongSegments = data.clone();
+        ByteBuffer.wrap(wrongSegments).order(ByteOrder.LITTLE_ENDIAN).putInt(lengthPosition - 1 - 2 * Integer.BYTES, 3);
+        assertCorrupt(wrongSegments);
+    }
+
+    private static void assertCorrupt(byte[] data) {
+        try {
+            Serializations.readBinaryFuseFilter(new ByteArrayInputStream(data));
+            fail("Corrupt stream was read");
+        } catch (SerializationException e) {
+            // expected
+        }
+    }
+
+    private static void assertCorruptBloomFilter(byte[] data) {
+        try {
+            Serializations.readFrom(new ByteArrayInputStream(data));
+            fail("Corrupt stream was read");
+        } catch (SerializationException e) {
+            // expected
+        }
+    }
+}